@@ -0,0 +1,62 @@
+package com.luxurydecor.identity_service.benchmark;
+
+import com.luxurydecor.identity_service.config.BoundedPasswordEncoder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+// Đo số lần kiểm tra mật khẩu khi đăng nhập / giây theo từng cost bcrypt
+// - direct: bcrypt chạy ngay trên thread của request (cách cũ)
+// - bounded: qua BoundedPasswordEncoder (pool băm riêng bằng số CPU)
+// Chạy: ./mvnw -Pbenchmark test-compile exec:java
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@Threads(16) // Giả lập 16 request đăng nhập đồng thời
+public class LoginThroughputBenchmark {
+    private static final String PASSWORD = "Password@123";
+
+    @Param({"8", "10", "12"})
+    public int strength;
+
+    private PasswordEncoder direct;
+    private BoundedPasswordEncoder bounded;
+    private String encodedPassword;
+
+    @Setup
+    public void setUp() {
+        direct = new BCryptPasswordEncoder(strength);
+        bounded = new BoundedPasswordEncoder(new BCryptPasswordEncoder(strength),
+                Runtime.getRuntime().availableProcessors(), 1024, TimeUnit.MINUTES.toMillis(1));
+        encodedPassword = direct.encode(PASSWORD);
+    }
+
+    @TearDown
+    public void tearDown() {
+        bounded.close();
+    }
+
+    @Benchmark
+    public boolean direct() {
+        return direct.matches(PASSWORD, encodedPassword);
+    }
+
+    @Benchmark
+    public boolean bounded() {
+        return bounded.matches(PASSWORD, encodedPassword);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LoginThroughputBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -3,12 +3,14 @@ package com.luxurydecor.identity_service.config;
 import com.luxurydecor.identity_service.service.JwtAuthenticationFilter;
 import com.luxurydecor.identity_service.service.SecurityService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
+import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
@@ -25,6 +27,7 @@ import java.util.List;
 
 @Configuration
 @EnableWebSecurity
+@EnableMethodSecurity // Bật @PreAuthorize cho các API quản trị (role lấy từ JWT)
 public class AuthConfig {
     @Autowired
     private JwtAuthenticationFilter jwtAuthenticationFilter;
@@ -50,9 +53,16 @@ public class AuthConfig {
                 .build();
     }
 
+    // Mã hóa mật khẩu: bcrypt với cost cấu hình được, chạy trên pool băm riêng có giới hạn
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(); // Mã hóa mật khẩu
+    public PasswordEncoder passwordEncoder(
+            @Value("${security.bcrypt.strength:10}") int strength,
+            @Value("${security.password-hashing.threads:0}") int threads,
+            @Value("${security.password-hashing.queue-capacity:64}") int queueCapacity,
+            @Value("${security.password-hashing.timeout-ms:5000}") long timeoutMs) {
+        // threads = 0 -> mặc định bằng số CPU
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(strength), poolSize, queueCapacity, timeoutMs);
     }
 
     @Bean
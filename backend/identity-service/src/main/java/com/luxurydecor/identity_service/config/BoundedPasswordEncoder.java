@@ -0,0 +1,71 @@
+package com.luxurydecor.identity_service.config;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+// Chạy băm / so khớp mật khẩu (bcrypt, tốn CPU có chủ đích) trên 1 pool riêng có giới hạn
+// - Số thread băm cố định: đợt login dồn dập không chiếm hết CPU của các API khác
+// - Hàng đợi có giới hạn: quá tải thì từ chối ngay thay vì xếp hàng vô hạn
+// - Quá timeout chỉ hủy được task còn nằm trong hàng đợi; bcrypt đang chạy không dừng được giữa chừng
+//   (không kiểm tra interrupt) nên vẫn chiếm thread tới khi xong, giới hạn thật là số thread + hàng đợi
+public class BoundedPasswordEncoder implements PasswordEncoder, AutoCloseable {
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMs;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, long timeoutMs) {
+        this.delegate = delegate;
+        this.timeoutMs = timeoutMs;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("password-hash-", 0).daemon(true).factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T run(Supplier<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task::get);
+        } catch (RejectedExecutionException e) {
+            throw new RuntimeException("Hệ thống đang bận, vui lòng thử lại sau ít phút");
+        }
+
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Task còn trong hàng đợi sẽ không chạy nữa, task đang chạy vẫn chạy nốt
+            future.cancel(false);
+            throw new RuntimeException("Hệ thống đang bận, vui lòng thử lại sau ít phút");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Yêu cầu bị gián đoạn");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
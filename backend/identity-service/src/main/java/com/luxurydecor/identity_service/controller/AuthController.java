@@ -1,6 +1,8 @@
 package com.luxurydecor.identity_service.controller;
 
 import com.luxurydecor.identity_service.dto.*;
+import com.luxurydecor.identity_service.dto.token.TokenRefreshRequest;
+import com.luxurydecor.identity_service.dto.token.TokenRefreshResponse;
 import com.luxurydecor.identity_service.entity.Account;
 import com.luxurydecor.identity_service.service.AuthService;
 import jakarta.validation.Valid;
@@ -36,6 +38,12 @@ public class AuthController {
         return ResponseEntity.ok(authService.login(request));
     }
 
+    // Đổi refresh token lấy access token mới (refresh token cũ bị thu hồi)
+    @PostMapping("/refresh-token")
+    public ResponseEntity<TokenRefreshResponse> refreshToken(@RequestBody TokenRefreshRequest request) {
+        return ResponseEntity.ok(authService.refreshToken(request));
+    }
+
     @PostMapping("/forgot-password")
     public ResponseEntity<String> forgotPassword(@RequestBody @Valid ForgotPasswordRequest request) {
         return ResponseEntity.ok(authService.forgotPassword(request));
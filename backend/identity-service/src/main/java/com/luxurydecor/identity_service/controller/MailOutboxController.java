@@ -0,0 +1,25 @@
+package com.luxurydecor.identity_service.controller;
+
+import com.luxurydecor.identity_service.service.EmailOutboxDispatcher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/internal/mail-outbox")
+public class MailOutboxController {
+    @Autowired
+    private EmailOutboxDispatcher dispatcher;
+
+    // Độ dài hàng đợi, số email đã gửi / lỗi và độ trễ gửi
+    @GetMapping("/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        return ResponseEntity.ok(dispatcher.getStats());
+    }
+}
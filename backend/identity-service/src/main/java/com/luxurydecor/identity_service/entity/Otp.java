@@ -7,7 +7,10 @@ import java.time.LocalDateTime;
 
 @Entity
 @Data
-@Table(name = "otps", schema = "auth_schema")
+@Table(name = "otps", schema = "auth_schema", indexes = {
+        @Index(name = "idx_otps_email", columnList = "email"),
+        @Index(name = "idx_otps_expired_at", columnList = "expired_at")
+})
 public class Otp {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -21,4 +24,7 @@ public class Otp {
     private LocalDateTime expirationTime;
     private String tempUsername;
     private String tempPassword;
+    // Số lần nhập sai của mã hiện tại, dùng chung giữa các instance (null = 0 với dòng cũ)
+    @Column(name = "failed_attempts")
+    private Integer failedAttempts;
 }
@@ -2,27 +2,38 @@ package com.luxurydecor.identity_service.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
 
 import java.time.LocalDateTime;
 
+// Mỗi phiên đăng nhập (mỗi thiết bị) là 1 dòng, 1 tài khoản có thể có nhiều dòng
+// Chỉ lưu SHA-256 của token, token gốc chỉ client giữ
 @Entity
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
-@Table(name = "refresh_token", schema = "auth_schema")
+@Table(name = "refresh_tokens", schema = "auth_schema", indexes = {
+        @Index(name = "idx_refresh_tokens_account", columnList = "account_id"),
+        @Index(name = "idx_refresh_tokens_expiry", columnList = "expiry_date")
+})
 public class RefreshToken {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(nullable = false, unique = true)
-    private String token; // Chuỗi token (thường là UUID)
+    @Column(name = "token_hash", nullable = false, unique = true, length = 64)
+    private String tokenHash;
 
-    @Column(nullable = false)
+    @Column(name = "expiry_date", nullable = false)
     private LocalDateTime expiryDate; // Thời gian hết hạn
 
-    @OneToOne
-    @JoinColumn(name = "account_id", referencedColumnName = "account_id")
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "account_id", referencedColumnName = "account_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE) // Xóa tài khoản thì xóa luôn các phiên
     private Account account;
 }
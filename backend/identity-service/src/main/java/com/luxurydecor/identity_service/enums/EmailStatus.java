@@ -0,0 +1,8 @@
+package com.luxurydecor.identity_service.enums;
+
+public enum EmailStatus {
+    PENDING,  // Chờ gửi (hoặc chờ gửi lại sau khi lỗi)
+    SENDING,  // Đã có worker nhận, đang gửi
+    SENT,
+    FAILED    // Hết số lần thử
+}
@@ -0,0 +1,92 @@
+package com.luxurydecor.identity_service.otp;
+
+import com.luxurydecor.identity_service.entity.Otp;
+import com.luxurydecor.identity_service.repository.OtpRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+// Lưu OTP xuống bảng auth_schema.otps (mặc định)
+@Component
+@ConditionalOnProperty(name = "otp.store.persistent", havingValue = "true", matchIfMissing = true)
+public class JpaOtpBackingStore implements OtpBackingStore {
+    @Autowired
+    private OtpRepository otpRepository;
+
+    @Value("${otp.resend-cooldown-seconds:60}")
+    private long resendCooldownSeconds;
+
+    @Override
+    @Transactional
+    public void save(OtpEntry entry) {
+        LocalDateTime expiresAt = toLocalDateTime(entry.getExpiresAt());
+        if (otpRepository.reissue(entry.getEmail(), entry.getCode(), expiresAt,
+                entry.getTempUsername(), entry.getTempPassword()) > 0) {
+            return;
+        }
+
+        Otp otp = new Otp();
+        otp.setEmail(entry.getEmail());
+        otp.setOtpCode(entry.getCode());
+        otp.setExpirationTime(expiresAt);
+        otp.setTempUsername(entry.getTempUsername());
+        otp.setTempPassword(entry.getTempPassword());
+        otp.setFailedAttempts(0);
+        otpRepository.save(otp);
+    }
+
+    @Override
+    public Optional<OtpEntry> find(String email) {
+        return otpRepository.findByEmail(email).map(this::toEntry);
+    }
+
+    @Override
+    @Transactional
+    public boolean consume(String email, String code) {
+        return otpRepository.deleteByEmailAndCode(email, code) > 0;
+    }
+
+    @Override
+    @Transactional
+    public OptionalInt recordFailedAttempt(String email, String code) {
+        if (otpRepository.incrementFailedAttempts(email, code) == 0) {
+            return OptionalInt.empty();
+        }
+        return OptionalInt.of(otpRepository.findFailedAttempts(email).orElse(0));
+    }
+
+    @Override
+    public List<OtpEntry> loadActive() {
+        return otpRepository.findByExpirationTimeAfter(LocalDateTime.now()).stream()
+                .map(this::toEntry)
+                .toList();
+    }
+
+    @Override
+    @Transactional
+    public int purgeExpired() {
+        return otpRepository.deleteExpired(LocalDateTime.now());
+    }
+
+    private OtpEntry toEntry(Otp otp) {
+        long expiresAt = otp.getExpirationTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        // Bảng cũ không lưu thời điểm gửi -> coi như vừa gửi lúc phát hành mã
+        OtpEntry entry = new OtpEntry(otp.getEmail(), otp.getOtpCode(), otp.getTempUsername(), otp.getTempPassword(),
+                expiresAt, Math.min(expiresAt, System.currentTimeMillis() + resendCooldownSeconds * 1000));
+        entry.getFailedAttempts().set(otp.getFailedAttempts() == null ? 0 : otp.getFailedAttempts());
+        return entry;
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+}
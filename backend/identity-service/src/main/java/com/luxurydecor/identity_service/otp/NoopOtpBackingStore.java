@@ -0,0 +1,44 @@
+package com.luxurydecor.identity_service.otp;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+// Chỉ giữ OTP trong bộ nhớ (1 instance, chấp nhận mất OTP khi restart)
+@Component
+@ConditionalOnProperty(name = "otp.store.persistent", havingValue = "false")
+public class NoopOtpBackingStore implements OtpBackingStore {
+    @Override
+    public void save(OtpEntry entry) {
+    }
+
+    @Override
+    public Optional<OtpEntry> find(String email) {
+        return Optional.empty();
+    }
+
+    // Không lưu bền -> chỉ dùng 1 lần trong phạm vi bộ nhớ của OtpStore
+    @Override
+    public boolean consume(String email, String code) {
+        return true;
+    }
+
+    // Không lưu bền -> chỉ đếm trong bộ nhớ của OtpStore
+    @Override
+    public OptionalInt recordFailedAttempt(String email, String code) {
+        return OptionalInt.of(0);
+    }
+
+    @Override
+    public List<OtpEntry> loadActive() {
+        return List.of();
+    }
+
+    @Override
+    public int purgeExpired() {
+        return 0;
+    }
+}
@@ -0,0 +1,25 @@
+package com.luxurydecor.identity_service.otp;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+// Nơi lưu bền OTP phía sau OtpStore (để OTP không mất khi restart / khi chạy nhiều instance)
+public interface OtpBackingStore {
+    void save(OtpEntry entry);
+
+    Optional<OtpEntry> find(String email);
+
+    // Xóa đúng mã code của email, false nếu mã không còn được lưu (đã dùng / đã bị thay ở instance khác)
+    boolean consume(String email, String code);
+
+    // Ghi nhận 1 lần nhập sai cho mã code của email, trả về tổng số lần sai đã lưu
+    // Rỗng nếu mã không còn được lưu (đã bị thay / bị xóa ở instance khác)
+    OptionalInt recordFailedAttempt(String email, String code);
+
+    // OTP còn hạn, nạp lại vào bộ nhớ khi khởi động
+    List<OtpEntry> loadActive();
+
+    // Xóa hàng loạt OTP đã hết hạn, trả về số dòng đã xóa
+    int purgeExpired();
+}
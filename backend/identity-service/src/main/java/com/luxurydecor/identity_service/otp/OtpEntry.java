@@ -0,0 +1,31 @@
+package com.luxurydecor.identity_service.otp;
+
+import lombok.Getter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// 1 mã OTP đang chờ xác thực (kèm thông tin đăng ký tạm nếu là OTP đăng ký)
+@Getter
+public class OtpEntry {
+    private final String email;
+    private final String code;
+    private final String tempUsername;
+    private final String tempPassword;
+    private final long expiresAt;       // epoch millis
+    private final long resendAllowedAt; // epoch millis, trước thời điểm này không cho gửi lại
+    private final AtomicInteger failedAttempts = new AtomicInteger();
+
+    public OtpEntry(String email, String code, String tempUsername, String tempPassword,
+                    long expiresAt, long resendAllowedAt) {
+        this.email = email;
+        this.code = code;
+        this.tempUsername = tempUsername;
+        this.tempPassword = tempPassword;
+        this.expiresAt = expiresAt;
+        this.resendAllowedAt = resendAllowedAt;
+    }
+
+    public boolean isExpired(long now) {
+        return expiresAt <= now;
+    }
+}
@@ -0,0 +1,168 @@
+package com.luxurydecor.identity_service.otp;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+// Kho OTP trong bộ nhớ, có TTL
+// - Cooldown gửi lại được kiểm tra trong bộ nhớ
+// - Số lần nhập sai được đếm cả trong bộ nhớ lẫn trên dòng lưu bền, lấy số lớn hơn
+//   -> giới hạn vẫn đúng khi request của cùng 1 email rơi vào nhiều instance
+// - Hết hạn tự động qua DelayQueue: chỉ lấy đúng các mã đã hết hạn, không quét toàn bộ
+// - Ghi xuống OtpBackingStore (mặc định bảng otps) để sống sót qua restart
+@Component
+public class OtpStore {
+    private final OtpBackingStore backingStore;
+    private final long ttlMillis;
+    private final long resendCooldownMillis;
+    private final int maxVerifyAttempts;
+
+    private final SecureRandom random = new SecureRandom();
+    private final Map<String, OtpEntry> entries = new ConcurrentHashMap<>();
+    private final DelayQueue<Expiry> expiries = new DelayQueue<>();
+
+    public OtpStore(OtpBackingStore backingStore,
+                    @Value("${otp.ttl-seconds:120}") long ttlSeconds,
+                    @Value("${otp.resend-cooldown-seconds:60}") long resendCooldownSeconds,
+                    @Value("${otp.max-verify-attempts:5}") int maxVerifyAttempts) {
+        this.backingStore = backingStore;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.resendCooldownMillis = resendCooldownSeconds * 1000;
+        this.maxVerifyAttempts = maxVerifyAttempts;
+    }
+
+    private record Expiry(OtpEntry entry) implements Delayed {
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(entry.getExpiresAt() - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(entry.getExpiresAt(), ((Expiry) other).entry.getExpiresAt());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadFromBackingStore() {
+        backingStore.loadActive().forEach(this::put);
+    }
+
+    // Sinh mã mới cho email, ném lỗi nếu chưa hết thời gian chờ gửi lại
+    public String issue(String email, String tempUsername, String tempPassword) {
+        long now = System.currentTimeMillis();
+        OtpEntry existing = get(email, now);
+        if (existing != null && existing.getResendAllowedAt() > now) {
+            long secondsLeft = (existing.getResendAllowedAt() - now + 999) / 1000;
+            throw new RuntimeException("Vui lòng đợi " + secondsLeft + " giây nữa trước khi gửi lại mã mới.");
+        }
+
+        String code = String.valueOf(random.nextInt(900000) + 100000);
+        OtpEntry entry = new OtpEntry(email, code, tempUsername, tempPassword,
+                now + ttlMillis, now + Math.min(resendCooldownMillis, ttlMillis));
+        put(entry);
+        backingStore.save(entry);
+        return code;
+    }
+
+    // Kiểm tra mã; đúng thì xóa luôn (mỗi mã chỉ dùng 1 lần) và trả về thông tin kèm theo
+    public OtpEntry consume(String email, String code) {
+        long now = System.currentTimeMillis();
+        OtpEntry entry = get(email, now);
+        if (entry == null) {
+            throw new RuntimeException("Mã OTP không chính xác hoặc đã hết hạn");
+        }
+
+        if (!MessageDigest.isEqual(entry.getCode().getBytes(StandardCharsets.UTF_8),
+                String.valueOf(code).getBytes(StandardCharsets.UTF_8))) {
+            entry.getFailedAttempts().incrementAndGet();
+            OptionalInt persisted = backingStore.recordFailedAttempt(email, entry.getCode());
+            if (persisted.isEmpty()) {
+                // Mã đã bị thay / bị khóa ở instance khác -> bỏ bản trong bộ nhớ
+                entries.remove(email, entry);
+                throw new RuntimeException("Mã OTP không chính xác hoặc đã hết hạn");
+            }
+            int attempts = entry.getFailedAttempts().accumulateAndGet(persisted.getAsInt(), Math::max);
+            if (attempts >= maxVerifyAttempts) {
+                remove(entry);
+                throw new RuntimeException("Nhập sai quá nhiều lần, vui lòng yêu cầu mã mới");
+            }
+            throw new RuntimeException("Mã OTP không chính xác");
+        }
+
+        // Chỉ 1 request được dùng mã (2 request cùng lúc thì request sau thất bại)
+        if (!entries.remove(email, entry)) {
+            throw new RuntimeException("Mã OTP không chính xác hoặc đã hết hạn");
+        }
+        // Instance khác cũng có thể giữ mã này trong bộ nhớ -> DELETE có điều kiện quyết định ai được dùng,
+        // và không xóa nhầm mã mới được phát hành lại ở nơi khác
+        if (!backingStore.consume(email, entry.getCode())) {
+            throw new RuntimeException("Mã OTP không chính xác hoặc đã hết hạn");
+        }
+        return entry;
+    }
+
+    // Lấy các mã đã hết hạn ra khỏi bộ nhớ (DelayQueue chỉ trả về phần tử đã tới hạn)
+    @Scheduled(fixedDelayString = "${otp.expiry-interval-ms:1000}")
+    public void expireEntries() {
+        Expiry expiry;
+        while ((expiry = expiries.poll()) != null) {
+            // Nếu email đã có mã mới thì entry cũ không còn trong map, remove không ảnh hưởng
+            entries.remove(expiry.entry().getEmail(), expiry.entry());
+        }
+    }
+
+    // Dọn bảng otps theo lô, không để bảng phình ra vì các mã không ai dùng
+    @Scheduled(fixedDelayString = "${otp.purge-interval-ms:600000}")
+    public void purgeBackingStore() {
+        int purged = backingStore.purgeExpired();
+        if (purged > 0) {
+            System.out.println("Đã xóa " + purged + " OTP hết hạn");
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private OtpEntry get(String email, long now) {
+        OtpEntry entry = entries.get(email);
+        if (entry == null) {
+            // Có thể mã được phát hành ở instance khác / trước khi restart
+            entry = backingStore.find(email).orElse(null);
+            if (entry == null) {
+                return null;
+            }
+            OtpEntry existing = entries.putIfAbsent(email, entry);
+            if (existing != null) {
+                entry = existing;
+            } else {
+                expiries.add(new Expiry(entry));
+            }
+        }
+        return entry.isExpired(now) ? null : entry;
+    }
+
+    private void put(OtpEntry entry) {
+        entries.put(entry.getEmail(), entry);
+        expiries.add(new Expiry(entry));
+    }
+
+    // Hủy mã (nhập sai quá số lần): chỉ xóa đúng mã này, không đụng mã mới đã phát hành ở nơi khác
+    private void remove(OtpEntry entry) {
+        entries.remove(entry.getEmail(), entry);
+        backingStore.consume(entry.getEmail(), entry.getCode());
+    }
+}
@@ -0,0 +1,69 @@
+package com.luxurydecor.identity_service.repository;
+
+import com.luxurydecor.identity_service.entity.EmailOutbox;
+import com.luxurydecor.identity_service.enums.EmailStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+    // Lấy 1 lô email đến hạn gửi, bỏ qua các dòng instance khác đang khóa (SKIP LOCKED)
+    // SENDING quá hạn giữ = worker trước đó đã chết giữa chừng -> nhận lại
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM EmailOutbox e WHERE e.status IN :statuses AND e.nextAttemptAt <= :now ORDER BY e.nextAttemptAt")
+    List<EmailOutbox> lockDue(@Param("statuses") List<EmailStatus> statuses,
+                              @Param("now") LocalDateTime now,
+                              Pageable pageable);
+
+    // Gia hạn giữ cho email đang gửi, chỉ khi hạn giữ vẫn là của mình (chưa bị instance khác nhận lại)
+    @Modifying
+    @Query("UPDATE EmailOutbox e SET e.nextAttemptAt = :leaseUntil " +
+            "WHERE e.id = :id AND e.nextAttemptAt = :currentLease " +
+            "AND e.status = com.luxurydecor.identity_service.enums.EmailStatus.SENDING")
+    int renewLease(@Param("id") Long id,
+                   @Param("currentLease") LocalDateTime currentLease,
+                   @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    // Chốt kết quả gửi, chỉ khi vẫn đang giữ email với đúng hạn giữ này
+    @Modifying
+    @Query("UPDATE EmailOutbox e SET e.status = com.luxurydecor.identity_service.enums.EmailStatus.SENT, " +
+            "e.sentAt = :sentAt, e.lastError = null " +
+            "WHERE e.id = :id AND e.nextAttemptAt = :lease " +
+            "AND e.status = com.luxurydecor.identity_service.enums.EmailStatus.SENDING")
+    int markSent(@Param("id") Long id, @Param("lease") LocalDateTime lease, @Param("sentAt") LocalDateTime sentAt);
+
+    // Gửi lỗi: PENDING chờ thử lại lúc nextAttemptAt, hoặc FAILED khi hết số lần thử
+    @Modifying
+    @Query("UPDATE EmailOutbox e SET e.status = :status, e.attempts = :attempts, e.lastError = :lastError, " +
+            "e.nextAttemptAt = :nextAttemptAt " +
+            "WHERE e.id = :id AND e.nextAttemptAt = :lease " +
+            "AND e.status = com.luxurydecor.identity_service.enums.EmailStatus.SENDING")
+    int markFailed(@Param("id") Long id,
+                   @Param("lease") LocalDateTime lease,
+                   @Param("status") EmailStatus status,
+                   @Param("attempts") int attempts,
+                   @Param("lastError") String lastError,
+                   @Param("nextAttemptAt") LocalDateTime nextAttemptAt);
+
+    // Trả các email đã nhận nhưng chưa gửi về PENDING (không tính là 1 lần thử)
+    @Modifying
+    @Query("UPDATE EmailOutbox e SET e.nextAttemptAt = :nextAttemptAt, " +
+            "e.status = com.luxurydecor.identity_service.enums.EmailStatus.PENDING " +
+            "WHERE e.id IN :ids AND e.status = com.luxurydecor.identity_service.enums.EmailStatus.SENDING")
+    int release(@Param("ids") Collection<Long> ids, @Param("nextAttemptAt") LocalDateTime nextAttemptAt);
+
+    long countByStatus(EmailStatus status);
+}
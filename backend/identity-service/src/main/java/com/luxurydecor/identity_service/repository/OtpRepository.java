@@ -2,10 +2,45 @@ package com.luxurydecor.identity_service.repository;
 
 import com.luxurydecor.identity_service.entity.Otp;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 public interface OtpRepository extends JpaRepository<Otp, Integer> {
-    Optional<Otp> findByEmailAndOtpCode(String email, String otpCode);
     Optional<Otp> findByEmail(String email);
+
+    List<Otp> findByExpirationTimeAfter(LocalDateTime now);
+
+    // Phát hành lại mã cho email đã có dòng: ghi đè tại chỗ, không DELETE + INSERT
+    @Modifying
+    @Query("UPDATE Otp o SET o.otpCode = :code, o.expirationTime = :expiresAt, o.tempUsername = :tempUsername, " +
+            "o.tempPassword = :tempPassword, o.failedAttempts = 0 WHERE o.email = :email")
+    int reissue(@Param("email") String email,
+                @Param("code") String code,
+                @Param("expiresAt") LocalDateTime expiresAt,
+                @Param("tempUsername") String tempUsername,
+                @Param("tempPassword") String tempPassword);
+
+    // Tăng số lần nhập sai của đúng mã đang lưu (khóa dòng tới hết transaction -> các instance đếm tuần tự)
+    @Modifying
+    @Query("UPDATE Otp o SET o.failedAttempts = COALESCE(o.failedAttempts, 0) + 1 " +
+            "WHERE o.email = :email AND o.otpCode = :code")
+    int incrementFailedAttempts(@Param("email") String email, @Param("code") String code);
+
+    @Query("SELECT COALESCE(o.failedAttempts, 0) FROM Otp o WHERE o.email = :email")
+    Optional<Integer> findFailedAttempts(@Param("email") String email);
+
+    // Dùng mã: chỉ xóa đúng mã đang lưu, 0 dòng = đã được dùng ở nơi khác / đã bị thay / hết hạn bị dọn
+    @Modifying
+    @Query("DELETE FROM Otp o WHERE o.email = :email AND o.otpCode = :code")
+    int deleteByEmailAndCode(@Param("email") String email, @Param("code") String code);
+
+    // Xóa hàng loạt bằng 1 câu DELETE (dùng index expired_at), không load entity
+    @Modifying
+    @Query("DELETE FROM Otp o WHERE o.expirationTime < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
 }
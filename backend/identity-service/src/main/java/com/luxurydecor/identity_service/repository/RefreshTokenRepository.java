@@ -1,14 +1,42 @@
 package com.luxurydecor.identity_service.repository;
 
-import com.luxurydecor.identity_service.entity.Account;
 import com.luxurydecor.identity_service.entity.RefreshToken;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 @Repository
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long>{
-    Optional<RefreshToken> findByToken(String token);
-    Optional<RefreshToken> findByAccount(Account account);
+    // Tìm theo hash (unique index), lấy luôn account để sinh access token mới
+    @Query("SELECT r FROM RefreshToken r JOIN FETCH r.account WHERE r.tokenHash = :tokenHash")
+    Optional<RefreshToken> findByTokenHash(@Param("tokenHash") String tokenHash);
+
+    // Xoay vòng: chỉ thành công nếu token cũ còn tồn tại và còn hạn (2 request dùng cùng token -> 1 cái thắng)
+    @Modifying
+    @Transactional
+    @Query("UPDATE RefreshToken r SET r.tokenHash = :newHash, r.expiryDate = :newExpiry " +
+            "WHERE r.tokenHash = :oldHash AND r.expiryDate > :now")
+    int rotate(@Param("oldHash") String oldHash,
+               @Param("newHash") String newHash,
+               @Param("newExpiry") LocalDateTime newExpiry,
+               @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RefreshToken r WHERE r.tokenHash = :tokenHash")
+    int deleteByTokenHash(@Param("tokenHash") String tokenHash);
+
+    // Xóa 1 lô token hết hạn; giới hạn số dòng để không khóa bảng lâu
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM auth_schema.refresh_tokens WHERE id IN (" +
+            "SELECT id FROM auth_schema.refresh_tokens WHERE expiry_date < :now LIMIT :limit)",
+            nativeQuery = true)
+    int deleteExpiredBatch(@Param("now") LocalDateTime now, @Param("limit") int limit);
 }
@@ -4,23 +4,17 @@ import com.luxurydecor.identity_service.dto.*;
 import com.luxurydecor.identity_service.dto.token.TokenRefreshRequest;
 import com.luxurydecor.identity_service.dto.token.TokenRefreshResponse;
 import com.luxurydecor.identity_service.entity.Account;
-import com.luxurydecor.identity_service.entity.Otp;
-import com.luxurydecor.identity_service.entity.RefreshToken;
+import com.luxurydecor.identity_service.otp.OtpEntry;
+import com.luxurydecor.identity_service.otp.OtpStore;
 import com.luxurydecor.identity_service.repository.AccountRepository;
-import com.luxurydecor.identity_service.repository.OtpRepository;
-import com.luxurydecor.identity_service.repository.RefreshTokenRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
-import java.time.Duration;
-import java.time.LocalDateTime;
-import java.util.Optional;
-import java.util.Random;
-import java.util.UUID;
 
 @Service
 public class AuthService {
@@ -28,7 +22,7 @@ public class AuthService {
     @Autowired
     private AccountRepository repository;
     @Autowired
-    private OtpRepository otpRepository;
+    private OtpStore otpStore;
     @Autowired
     private PasswordEncoder passwordEncoder;
     @Autowired
@@ -38,7 +32,7 @@ public class AuthService {
     @Autowired
     private EmailService emailService;
     @Autowired
-    private RefreshTokenRepository refreshTokenRepository;
+    private RefreshTokenService refreshTokenService;
 
     public String register(RegisterRequest request) {
 
@@ -59,72 +53,30 @@ public class AuthService {
         return "Mã OTP đã gửi đến email. Vui lòng nhập mã để hoàn tất đăng ký.";
     }
 
+    // Cooldown gửi lại, TTL và lưu bền do OtpStore đảm nhận
     private String generateAndSaveOtp(String email, String tempUsername, String tempPassword) {
-
-        Optional<Otp> existingOtp = otpRepository.findByEmail(email);
-
-        if (existingOtp.isPresent()) {
-            Otp oldOtp = existingOtp.get();
-
-            // Nếu OTP cũ vẫn còn hạn (ExpirationTime > Now)
-            if (oldOtp.getExpirationTime().isAfter(LocalDateTime.now())) {
-                // Tính thời gian còn lại (giây)
-                long secondsLeft = Duration.between(LocalDateTime.now(), oldOtp.getExpirationTime()).getSeconds();
-
-                // Ném ngoại lệ để Frontend nhận được và thông báo
-                throw new RuntimeException("Vui lòng đợi " + secondsLeft + " giây nữa trước khi gửi lại mã mới.");
-            }
-
-            // Nếu đã hết hạn thì xóa đi để tạo cái mới
-            otpRepository.delete(oldOtp);
-        }
-
-        // Sinh mã OTP ngẫu nhiên
-        String otpCode = String.valueOf(new Random().nextInt(900000) + 100000);
-
-        // Tạo đối tượng OTP
-        Otp otpEntry = new Otp();
-        otpEntry.setEmail(email);
-        otpEntry.setOtpCode(otpCode);
-        otpEntry.setExpirationTime(LocalDateTime.now().plusMinutes(2)); // Hết hạn sau 2 phút
-
-        // Nếu có thông tin đăng ký tạm thời thì lưu vào
-        if (tempUsername != null) otpEntry.setTempUsername(tempUsername);
-        if (tempPassword != null) otpEntry.setTempPassword(tempPassword);
-
-        // Lưu xuống DB
-        otpRepository.save(otpEntry);
-
-        return otpCode;
+        return otpStore.issue(email, tempUsername, tempPassword);
     }
 
     public String verifyAccount(VerifyOtpRequest request) {
-        // Tìm trong bảng Otp
-        Otp otpEntity = otpRepository.findByEmailAndOtpCode(request.getEmail(), request.getOtp())
-                .orElseThrow(() -> new RuntimeException("Mã OTP không chính xác"));
+        // Kiểm tra mã trong OtpStore (sai / hết hạn / nhập sai quá số lần -> ném lỗi)
+        OtpEntry otpEntity = otpStore.consume(request.getEmail(), request.getOtp());
 
-        // Check hết hạn
-        if (otpEntity.getExpirationTime().isBefore(LocalDateTime.now())) {
-            throw new RuntimeException("Mã OTP đã hết hạn, vui lòng đăng ký lại");
-        }
-
-        // LẤY THÔNG TIN TỪ BẢNG OTP -> LƯU SANG BẢNG USER (ACCOUNT)
+        // LẤY THÔNG TIN ĐĂNG KÝ TẠM TỪ OTP -> LƯU SANG BẢNG USER (ACCOUNT)
         Account newUser = new Account();
         newUser.setEmail(otpEntity.getEmail());
         newUser.setUsername(otpEntity.getTempUsername());
         newUser.setPassword(otpEntity.getTempPassword());
         repository.save(newUser);
 
-        // Xóa OTP đã dùng để dọn dẹp
-        otpRepository.delete(otpEntity);
-
         return "Đăng ký thành công! Bạn có thể đăng nhập ngay bây giờ.";
     }
     public LoginResponse login(LoginRequest request) {
+        Authentication authentication;
         try {
             // 1. Dùng AuthenticationManager để xác thực
             // Hàm này mã hóa password người dùng nhập và so sánh với password hash trong DB
-            authenticationManager.authenticate(
+            authentication = authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(
                             request.getEmail(),
                             request.getPassword()
@@ -135,16 +87,16 @@ public class AuthService {
             throw new RuntimeException("Tài khoản hoặc mật khẩu không chính xác");
         }
 
-        Account user = repository.findByEmail(request.getEmail())
-                .orElseThrow(() -> new RuntimeException("Không tìm thấy người dùng"));
+        // Dùng lại tài khoản provider vừa load khi xác thực, không query findByEmail lần 2
+        Account user = ((CustomUserDetails) authentication.getPrincipal()).getAccount();
 
         // Sinh JWT Token và trả về
         String jwtToken = jwtService.generateToken(user.getEmail(),user.getAccountId(), user.getRole());
-        RefreshToken refreshToken = createRefreshToken(user.getEmail());
+        String refreshToken = refreshTokenService.issue(user);
 
         return LoginResponse.builder()
                 .token(jwtToken)
-                .refreshToken(refreshToken.getToken())
+                .refreshToken(refreshToken)
                 .message("Đăng nhập thành công")
                 .id(user.getAccountId())
                 .username(user.getUsername())
@@ -170,13 +122,8 @@ public class AuthService {
             throw new RuntimeException("Mật khẩu xác nhận không khớp");
         }
 
-        // Tìm và check OTP trong DB
-        Otp otpEntity = otpRepository.findByEmailAndOtpCode(request.getEmail(), request.getOtp())
-                .orElseThrow(() -> new RuntimeException("Mã OTP không chính xác"));
-
-        if (otpEntity.getExpirationTime().isBefore(LocalDateTime.now())) {
-            throw new RuntimeException("Mã OTP đã hết hạn");
-        }
+        // Kiểm tra OTP (mã chỉ dùng được 1 lần)
+        otpStore.consume(request.getEmail(), request.getOtp());
 
         // Lấy User ra để đổi pass
         Account user = repository.findByEmail(request.getEmail())
@@ -186,51 +133,20 @@ public class AuthService {
         user.setPassword(passwordEncoder.encode(request.getNewPassword()));
         repository.save(user);
 
-        // 5. Xóa OTP sau khi dùng xong
-        otpRepository.delete(otpEntity);
-
         return "Đặt lại mật khẩu thành công! Bạn có thể đăng nhập bằng mật khẩu mới.";
     }
 
-    public RefreshToken createRefreshToken(String email) {
-        Account account = repository.findByEmail(email).get();
+    // --- Xử lý logic làm mới Token (RefreshToken Flow) ---
+    // Token cũ bị thay bằng token mới (xoay vòng), client phải lưu lại refreshToken trả về
+    public TokenRefreshResponse refreshToken(TokenRefreshRequest request) {
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(request.getRefreshToken());
+        Account account = rotation.account();
 
-        // Kiểm tra xem user này đã có token chưa, nếu có thì xóa đi tạo cái mới (hoặc update hạn dùng)
-        // Ở đây mình làm đơn giản: Xóa cái cũ đi tạo cái mới
-        refreshTokenRepository.findByAccount(account).ifPresent(refreshTokenRepository::delete);
+        String newAccessToken = jwtService.generateToken(account.getEmail(), account.getAccountId(), account.getRole());
 
-        RefreshToken refreshToken = RefreshToken.builder()
-                .account(account)
-                .token(UUID.randomUUID().toString()) // Tạo chuỗi ngẫu nhiên
-                .expiryDate(LocalDateTime.now().plusDays(7)) // Hết hạn sau 7 ngày
+        return TokenRefreshResponse.builder()
+                .accessToken(newAccessToken)
+                .refreshToken(rotation.newToken())
                 .build();
-
-        return refreshTokenRepository.save(refreshToken);
-    }
-
-    // --- HÀM 2: Xử lý logic làm mới Token (RefreshToken Flow) ---
-    public TokenRefreshResponse refreshToken(TokenRefreshRequest request) {
-        String requestRefreshToken = request.getRefreshToken();
-
-        // 1. Tìm token trong DB
-        return refreshTokenRepository.findByToken(requestRefreshToken)
-                .map(token -> {
-                    // 2. Kiểm tra hết hạn
-                    if (token.getExpiryDate().isBefore(LocalDateTime.now())) {
-                        refreshTokenRepository.delete(token); // Xóa token hết hạn
-                        throw new RuntimeException("Refresh token đã hết hạn. Vui lòng đăng nhập lại.");
-                    }
-                    return token;
-                })
-                .map(token -> {
-                    // 3. Nếu token ngon -> Tạo Access Token mới
-                    String newAccessToken = jwtService.generateToken(token.getAccount().getEmail(),token.getAccount().getAccountId(),token.getAccount().getRole());
-
-                    return TokenRefreshResponse.builder()
-                            .accessToken(newAccessToken)
-                            .refreshToken(requestRefreshToken) // Trả lại chính nó (hoặc tạo cái mới nếu muốn xoay vòng)
-                            .build();
-                })
-                .orElseThrow(() -> new RuntimeException("Refresh token không tồn tại trong Database!"));
     }
 }
@@ -3,6 +3,7 @@ package com.luxurydecor.identity_service.service;
 import com.luxurydecor.identity_service.entity.Account;
 import lombok.Getter;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
@@ -13,16 +14,33 @@ public class CustomUserDetails implements UserDetails {
     private final String email; // Dùng Email làm định danh chính
     private final String password;
     private final Integer id;
+    private final String role;
+    // Tài khoản đã load lúc xác thực (null nếu dựng từ JWT), login dùng lại để khỏi query lần 2
+    private final Account account;
 
     public CustomUserDetails(Account account) {
         this.email = account.getEmail();
         this.password = account.getPassword();
         this.id = account.getAccountId();
+        this.role = account.getRole();
+        this.account = account;
+    }
+
+    // Dựng từ claims của JWT đã xác thực, không cần query DB (không có mật khẩu)
+    public CustomUserDetails(Integer id, String email, String role) {
+        this.email = email;
+        this.password = null;
+        this.id = id;
+        this.role = role;
+        this.account = null;
     }
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return Collections.emptyList();
+        if (role == null) {
+            return Collections.emptyList();
+        }
+        return Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role));
     }
 
     @Override
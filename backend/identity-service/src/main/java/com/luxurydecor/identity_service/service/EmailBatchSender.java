@@ -0,0 +1,79 @@
+package com.luxurydecor.identity_service.service;
+
+import com.luxurydecor.identity_service.entity.EmailOutbox;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Component;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Gửi 1 lô email qua CÙNG 1 kết nối SMTP (JavaMailSender.send(MimeMessage...))
+// Trả về id các email gửi lỗi kèm nguyên nhân, email còn lại coi như đã gửi
+@Component
+public class EmailBatchSender {
+    private final JavaMailSender javaMailSender;
+    private final String fromEmail;
+
+    public EmailBatchSender(JavaMailSender javaMailSender, @Value("${spring.mail.username}") String fromEmail) {
+        this.javaMailSender = javaMailSender;
+        this.fromEmail = fromEmail;
+    }
+
+    public Map<Long, String> send(List<EmailOutbox> emails) {
+        Map<Long, String> failures = new HashMap<>();
+        Map<Object, Long> idByMessage = new IdentityHashMap<>();
+        MimeMessage[] messages = new MimeMessage[emails.size()];
+        int count = 0;
+
+        for (EmailOutbox email : emails) {
+            try {
+                MimeMessage message = toMimeMessage(email);
+                idByMessage.put(message, email.getId());
+                messages[count++] = message;
+            } catch (MessagingException | UnsupportedEncodingException e) {
+                failures.put(email.getId(), "Lỗi tạo email: " + e.getMessage());
+            }
+        }
+        if (count == 0) {
+            return failures;
+        }
+
+        MimeMessage[] toSend = count == messages.length ? messages : Arrays.copyOf(messages, count);
+        try {
+            javaMailSender.send(toSend);
+        } catch (MailSendException e) {
+            // Chỉ những email trong failedMessages là lỗi (kể cả khi không kết nối được server)
+            if (e.getFailedMessages().isEmpty()) {
+                idByMessage.values().forEach(id -> failures.put(id, e.getMessage()));
+            }
+            e.getFailedMessages().forEach((message, ex) ->
+                    failures.put(idByMessage.get(message), ex.getMessage()));
+        } catch (RuntimeException e) {
+            // Lỗi xác thực / cấu hình -> cả lô lỗi
+            idByMessage.values().forEach(id -> failures.put(id, e.getMessage()));
+        }
+        return failures;
+    }
+
+    private MimeMessage toMimeMessage(EmailOutbox email) throws MessagingException, UnsupportedEncodingException {
+        MimeMessage message = javaMailSender.createMimeMessage();
+
+        // Sử dụng Helper để cấu hình dễ hơn, hỗ trợ tiếng Việt (UTF-8)
+        MimeMessageHelper helper = new MimeMessageHelper(message, MimeMessageHelper.MULTIPART_MODE_MIXED_RELATED, StandardCharsets.UTF_8.name());
+        helper.setFrom(fromEmail, "LuxuryDecor");
+        helper.setTo(email.getRecipient());
+        helper.setSubject(email.getSubject());
+        helper.setText(email.getBody(), email.isHtml());
+        return message;
+    }
+}
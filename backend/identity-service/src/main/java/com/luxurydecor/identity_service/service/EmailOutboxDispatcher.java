@@ -0,0 +1,236 @@
+package com.luxurydecor.identity_service.service;
+
+import com.luxurydecor.identity_service.entity.EmailOutbox;
+import com.luxurydecor.identity_service.enums.EmailStatus;
+import com.luxurydecor.identity_service.repository.EmailOutboxRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Worker nền gửi email từ bảng email_outbox
+// - Nhận 1 lô email đến hạn (SKIP LOCKED nên chạy nhiều instance vẫn an toàn)
+// - Chia thành các nhóm nhỏ, mỗi nhóm gửi qua 1 kết nối SMTP trên pool worker có giới hạn
+// - Lỗi thì thử lại với thời gian chờ tăng dần, quá số lần thì đánh dấu FAILED
+// - Email đã nhận được gia hạn giữ định kỳ tới khi gửi xong, SMTP chậm không làm instance khác nhận lại
+@Component
+public class EmailOutboxDispatcher {
+    private final EmailOutboxRepository outboxRepository;
+    private final EmailBatchSender batchSender;
+    private final TransactionTemplate transactionTemplate;
+
+    private final int claimBatchSize;
+    private final int connectionBatchSize;
+    private final int maxAttempts;
+    private final long baseBackoffSeconds;
+    private final long leaseSeconds;
+
+    private final ThreadPoolExecutor workers;
+    // Chỉ 1 lượt nhận việc chạy / chờ tại 1 thời điểm, các lần trigger dồn lại thành 1
+    private final ThreadPoolExecutor poller = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(1), new ThreadPoolExecutor.DiscardPolicy());
+
+    // id -> hạn giữ hiện tại của các email đã nhận mà chưa chốt kết quả (dùng làm "token" khi gia hạn)
+    private final Map<Long, LocalDateTime> leases = new ConcurrentHashMap<>();
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder latencyTotalMs = new LongAdder();
+    private final LongAccumulator latencyMaxMs = new LongAccumulator(Long::max, 0);
+
+    public EmailOutboxDispatcher(EmailOutboxRepository outboxRepository,
+                                 EmailBatchSender batchSender,
+                                 TransactionTemplate transactionTemplate,
+                                 @Value("${mail.outbox.workers:4}") int workerCount,
+                                 @Value("${mail.outbox.queue-capacity:100}") int queueCapacity,
+                                 @Value("${mail.outbox.claim-batch-size:100}") int claimBatchSize,
+                                 @Value("${mail.outbox.connection-batch-size:20}") int connectionBatchSize,
+                                 @Value("${mail.outbox.max-attempts:5}") int maxAttempts,
+                                 @Value("${mail.outbox.base-backoff-seconds:30}") long baseBackoffSeconds,
+                                 @Value("${mail.outbox.lease-seconds:120}") long leaseSeconds) {
+        this.outboxRepository = outboxRepository;
+        this.batchSender = batchSender;
+        this.transactionTemplate = transactionTemplate;
+        this.claimBatchSize = claimBatchSize;
+        this.connectionBatchSize = connectionBatchSize;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffSeconds = baseBackoffSeconds;
+        this.leaseSeconds = leaseSeconds;
+        // Hàng đợi có giới hạn: đầy thì từ chối, email vẫn nằm trong DB và được nhận lại khi hết hạn giữ
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // Gọi ngay sau khi có email mới, không đợi tới lượt quét định kỳ
+    public void trigger() {
+        poller.execute(this::dispatchDue);
+    }
+
+    // Quét định kỳ: email gửi lại sau backoff, email bị bỏ dở khi instance khác chết
+    @Scheduled(fixedDelayString = "${mail.outbox.poll-interval-ms:5000}")
+    public void poll() {
+        trigger();
+    }
+
+    void dispatchDue() {
+        try {
+            List<EmailOutbox> claimed;
+            do {
+                claimed = claim();
+                for (int from = 0; from < claimed.size(); from += connectionBatchSize) {
+                    List<EmailOutbox> chunk = claimed.subList(from, Math.min(from + connectionBatchSize, claimed.size()));
+                    try {
+                        workers.execute(() -> deliver(chunk));
+                    } catch (RejectedExecutionException e) {
+                        // Pool đang quá tải -> trả phần chưa giao về PENDING ngay, không giữ tới hết hạn
+                        release(claimed.subList(from, claimed.size()));
+                        return;
+                    }
+                }
+            } while (claimed.size() == claimBatchSize);
+        } catch (Exception e) {
+            System.out.println("Lỗi khi quét hàng đợi email: " + e.getMessage());
+        }
+    }
+
+    // Đánh dấu SENDING + hạn giữ trong 1 transaction ngắn, giải phóng khóa trước khi gửi SMTP
+    private List<EmailOutbox> claim() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<EmailOutbox> due = outboxRepository.lockDue(
+                    List.of(EmailStatus.PENDING, EmailStatus.SENDING), now, PageRequest.of(0, claimBatchSize));
+            LocalDateTime leaseUntil = leaseUntil(now);
+            for (EmailOutbox email : due) {
+                email.setStatus(EmailStatus.SENDING);
+                email.setNextAttemptAt(leaseUntil);
+                leases.put(email.getId(), leaseUntil);
+            }
+            return due;
+        });
+    }
+
+    // Gia hạn giữ cho mọi email đang chờ worker / đang gửi; email đã bị nhận lại ở nơi khác thì bỏ theo dõi
+    @Scheduled(fixedDelayString = "${mail.outbox.lease-renew-interval-ms:40000}")
+    public void renewLeases() {
+        if (leases.isEmpty()) {
+            return;
+        }
+        LocalDateTime leaseUntil = leaseUntil(LocalDateTime.now());
+        for (Long id : leases.keySet()) {
+            // Gia hạn + commit ngay trong computeIfPresent: worker chốt kết quả (leases.remove) phải đợi
+            // và nhận đúng hạn giữ đang có trong DB
+            leases.computeIfPresent(id, (key, currentLease) -> {
+                try {
+                    Integer renewed = transactionTemplate.execute(status ->
+                            outboxRepository.renewLease(key, currentLease, leaseUntil));
+                    return renewed != null && renewed > 0 ? leaseUntil : null;
+                } catch (Exception e) {
+                    System.out.println("Lỗi khi gia hạn giữ email " + key + ": " + e.getMessage());
+                    return currentLease;
+                }
+            });
+        }
+    }
+
+    private void release(List<EmailOutbox> emails) {
+        List<Long> ids = emails.stream().map(EmailOutbox::getId).toList();
+        ids.forEach(leases::remove);
+        transactionTemplate.executeWithoutResult(status -> outboxRepository.release(ids, LocalDateTime.now()));
+    }
+
+    // Cắt về mili giây để giá trị đọc lại từ DB so khớp được khi gia hạn
+    private LocalDateTime leaseUntil(LocalDateTime now) {
+        return now.plusSeconds(leaseSeconds).truncatedTo(ChronoUnit.MILLIS);
+    }
+
+    private void deliver(List<EmailOutbox> chunk) {
+        // Email mất quyền giữ trong lúc chờ worker (đã bị instance khác nhận lại) -> không gửi trùng
+        List<EmailOutbox> owned = chunk.stream().filter(email -> leases.containsKey(email.getId())).toList();
+        if (owned.isEmpty()) {
+            return;
+        }
+
+        Map<Long, String> failures = batchSender.send(owned);
+        LocalDateTime now = LocalDateTime.now();
+
+        // Ghi kết quả từng email bằng UPDATE có điều kiện theo hạn giữ, không merge entity đọc lúc nhận việc
+        transactionTemplate.executeWithoutResult(status -> {
+            for (EmailOutbox email : owned) {
+                LocalDateTime lease = leases.remove(email.getId());
+                String error = failures.get(email.getId());
+                if (lease == null || !recordOutcome(email, lease, error, now)) {
+                    // Mất quyền giữ trong lúc gửi -> không ghi đè trạng thái instance khác đang giữ
+                    System.out.println("Email " + email.getId() + " đã bị nhận lại ở nơi khác, bỏ qua kết quả gửi");
+                }
+            }
+        });
+    }
+
+    private boolean recordOutcome(EmailOutbox email, LocalDateTime lease, String error, LocalDateTime now) {
+        if (error == null) {
+            if (outboxRepository.markSent(email.getId(), lease, now) == 0) {
+                return false;
+            }
+            sent.increment();
+            long latencyMs = Duration.between(email.getCreatedAt(), now).toMillis();
+            latencyTotalMs.add(latencyMs);
+            latencyMaxMs.accumulate(latencyMs);
+            return true;
+        }
+
+        int attempts = email.getAttempts() + 1;
+        String lastError = error.length() > 500 ? error.substring(0, 500) : error;
+        if (attempts >= maxAttempts) {
+            if (outboxRepository.markFailed(email.getId(), lease, EmailStatus.FAILED, attempts, lastError, now) == 0) {
+                return false;
+            }
+            failed.increment();
+            System.out.println("Gửi email thất bại hẳn tới " + email.getRecipient() + ": " + error);
+            return true;
+        }
+        // Chờ 30s, 60s, 120s, ... trước khi thử lại
+        LocalDateTime retryAt = now.plusSeconds(baseBackoffSeconds << (attempts - 1));
+        if (outboxRepository.markFailed(email.getId(), lease, EmailStatus.PENDING, attempts, lastError, retryAt) == 0) {
+            return false;
+        }
+        retried.increment();
+        return true;
+    }
+
+    public Map<String, Object> getStats() {
+        long sentCount = sent.sum();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pending", outboxRepository.countByStatus(EmailStatus.PENDING));
+        stats.put("sending", outboxRepository.countByStatus(EmailStatus.SENDING));
+        stats.put("leased", leases.size());
+        stats.put("failed_total", outboxRepository.countByStatus(EmailStatus.FAILED));
+        stats.put("worker_active", workers.getActiveCount());
+        stats.put("worker_queue", workers.getQueue().size());
+        stats.put("sent", sentCount);
+        stats.put("retried", retried.sum());
+        stats.put("failed", failed.sum());
+        stats.put("delivery_latency_avg_ms", sentCount == 0 ? 0 : latencyTotalMs.sum() / sentCount);
+        stats.put("delivery_latency_max_ms", latencyMaxMs.get());
+        return stats;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        poller.shutdownNow();
+        workers.shutdown();
+    }
+}
@@ -1,66 +1,72 @@
 package com.luxurydecor.identity_service.service;
 
 import com.luxurydecor.identity_service.dto.user.ContactRequest;
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
+import com.luxurydecor.identity_service.entity.EmailOutbox;
+import com.luxurydecor.identity_service.enums.EmailStatus;
+import com.luxurydecor.identity_service.repository.EmailOutboxRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
-import java.nio.charset.StandardCharsets;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.io.UnsupportedEncodingException;
+import java.time.LocalDateTime;
 
+// Không gửi SMTP trên thread của request: chỉ lưu email vào outbox rồi trả về ngay
+// Việc gửi do EmailOutboxDispatcher đảm nhận
 @Service
 public class EmailService {
     @Autowired
-    private JavaMailSender javaMailSender;
+    private EmailOutboxRepository outboxRepository;
+
+    @Autowired
+    private EmailOutboxDispatcher dispatcher;
 
     @Value("${spring.mail.username}")
     private String fromEmail;
 
     public void sendOtpEmail(String toEmail, String otp) {
-        try {
-            MimeMessage message = javaMailSender.createMimeMessage();
-
-            // Sử dụng Helper để cấu hình dễ hơn, hỗ trợ tiếng Việt (UTF-8)
-            MimeMessageHelper helper = new MimeMessageHelper(message, MimeMessageHelper.MULTIPART_MODE_MIXED_RELATED, StandardCharsets.UTF_8.name());
-
-            helper.setFrom(fromEmail, "LuxuryDecor");
-
-            helper.setTo(toEmail);
-            helper.setSubject("Mã xác thực đăng ký tài khoản");
-
-            // Nội dung email
-            String htmlContent = "<h3>Xin chào,</h3>"
-                    + "<p>Mã OTP xác thực của bạn là: <strong style='font-size: 18px; color: blue;'>" + otp + "</strong></p>"
-                    + "<p>Mã này sẽ hết hạn sau 2 phút.</p>"
-                    + "<br><p>Trân trọng,<br>Đội ngũ LuxuryDecor</p>";
-
-            helper.setText(htmlContent, true);
+        // Nội dung email
+        String htmlContent = "<h3>Xin chào,</h3>"
+                + "<p>Mã OTP xác thực của bạn là: <strong style='font-size: 18px; color: blue;'>" + otp + "</strong></p>"
+                + "<p>Mã này sẽ hết hạn sau 2 phút.</p>"
+                + "<br><p>Trân trọng,<br>Đội ngũ LuxuryDecor</p>";
 
-            javaMailSender.send(message);
-
-        } catch (MessagingException | UnsupportedEncodingException e) {
-            throw new RuntimeException("Lỗi khi gửi email: " + e.getMessage());
-        }
+        enqueue(toEmail, "Mã xác thực đăng ký tài khoản", htmlContent, true);
     }
 
     public void sendContactEmail(ContactRequest request) {
-        SimpleMailMessage message = new SimpleMailMessage();
-
-        // Người gửi (Lưu ý: Gmail thường sẽ override cái này bằng username cấu hình)
-        message.setFrom("noreply@niridecor.com");
-        message.setTo(fromEmail);
-        message.setSubject("Liên hệ mới từ khách hàng: " + request.getName());
-
         String content = "Tên khách hàng: " + request.getName() + "\n" +
                 "Email liên hệ: " + request.getEmail() + "\n\n" +
                 "Nội dung lời nhắn:\n" + request.getMessage();
 
-        message.setText(content);
-        javaMailSender.send(message);
+        // Gửi về hộp thư của shop
+        enqueue(fromEmail, "Liên hệ mới từ khách hàng: " + request.getName(), content, false);
+    }
+
+    private void enqueue(String recipient, String subject, String body, boolean html) {
+        LocalDateTime now = LocalDateTime.now();
+        outboxRepository.save(EmailOutbox.builder()
+                .recipient(recipient)
+                .subject(subject)
+                .body(body)
+                .html(html)
+                .status(EmailStatus.PENDING)
+                .attempts(0)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build());
+
+        // Đánh thức worker sau khi email đã được commit (nếu đang trong transaction)
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatcher.trigger();
+                }
+            });
+        } else {
+            dispatcher.trigger();
+        }
     }
 }
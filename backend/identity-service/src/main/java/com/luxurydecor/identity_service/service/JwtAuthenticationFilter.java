@@ -1,14 +1,13 @@
 package com.luxurydecor.identity_service.service;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
@@ -20,9 +19,6 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
 
-    @Autowired
-    private SecurityService securityService;
-
     @Override
     protected void doFilterInternal(
             HttpServletRequest request,
@@ -43,13 +39,19 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         final String jwt = authHeader.substring(7);
 
         try {
-            if (!jwtService.validateToken(jwt)) {
+            // Parse + verify 1 lần, lấy luôn email / userId / role đã được ký trong token
+            Claims claims = jwtService.parseClaims(jwt);
+            if (claims == null) {
                 filterChain.doFilter(request, response);
                 return;
             }
 
-            String email = jwtService.extractEmail(jwt);
-            UserDetails userDetails = securityService.loadUserByUsername(email);
+            // Dựng principal trực tiếp từ claims, không query bảng users mỗi request
+            CustomUserDetails userDetails = new CustomUserDetails(
+                    claims.get("userId", Integer.class),
+                    claims.getSubject(),
+                    claims.get("role", String.class)
+            );
 
             UsernamePasswordAuthenticationToken authentication =
                     new UsernamePasswordAuthenticationToken(
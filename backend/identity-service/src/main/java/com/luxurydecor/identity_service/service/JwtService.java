@@ -3,6 +3,7 @@ package com.luxurydecor.identity_service.service;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -37,20 +38,26 @@ public class JwtService {
                 .compact();
     }
 
+    // Key và parser chỉ tạo 1 lần khi khởi động (dùng chung an toàn giữa các thread)
+    private Key signKey;
+    private JwtParser parser;
+
+    @PostConstruct
+    void init() {
+        byte[] keyBytes = Decoders.BASE64.decode(secret);
+        signKey = Keys.hmacShaKeyFor(keyBytes);
+        parser = Jwts.parserBuilder().setSigningKey(signKey).build();
+    }
+
     // Hàm lấy Key ký tên
     private Key getSignKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secret);
-        return Keys.hmacShaKeyFor(keyBytes);
+        return signKey;
     }
 
-    // Hàm validate token
-    public boolean validateToken(final String token) {
+    // Parse + verify token 1 lần, trả về null nếu token không hợp lệ
+    public Claims parseClaims(final String token) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSignKey())
-                    .build()
-                    .parseClaimsJws(token);
-            return true;
+            return parser.parseClaimsJws(token).getBody();
         } catch (SignatureException e) {
             System.out.println("Invalid JWT signature: " + e.getMessage());
         } catch (MalformedJwtException e) {
@@ -63,24 +70,22 @@ public class JwtService {
             System.out.println("JWT claims string is empty: " + e.getMessage());
         }
 
-        return false;
+        return null;
+    }
+
+    // Hàm validate token
+    public boolean validateToken(final String token) {
+        return parseClaims(token) != null;
     }
 
     public String extractEmail(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSignKey())
-                .build()
-                .parseClaimsJws(token)
+        return parser.parseClaimsJws(token)
                 .getBody()
                 .getSubject();
     }
 
     public Integer extractUserId(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSignKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        Claims claims = parser.parseClaimsJws(token).getBody();
 
         return claims.get("userId", Integer.class);
     }
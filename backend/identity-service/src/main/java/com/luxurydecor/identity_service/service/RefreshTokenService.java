@@ -0,0 +1,106 @@
+package com.luxurydecor.identity_service.service;
+
+import com.luxurydecor.identity_service.entity.Account;
+import com.luxurydecor.identity_service.entity.RefreshToken;
+import com.luxurydecor.identity_service.repository.RefreshTokenRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+
+// Quản lý refresh token
+// - Token gốc là chuỗi ngẫu nhiên 256 bit, DB chỉ lưu SHA-256 (lookup theo unique index)
+// - Mỗi lần refresh thì xoay vòng: token cũ hết hiệu lực, trả về token mới
+// - Mỗi thiết bị đăng nhập có 1 dòng riêng, không đá phiên của thiết bị khác
+@Service
+public class RefreshTokenService {
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Value("${refresh-token.ttl-days:7}")
+    private long ttlDays;
+
+    @Value("${refresh-token.purge-batch-size:1000}")
+    private int purgeBatchSize;
+
+    private final SecureRandom random = new SecureRandom();
+
+    // Kết quả refresh: tài khoản sở hữu + token mới (gốc) để trả cho client
+    public record Rotation(Account account, String newToken) {
+    }
+
+    // Đăng nhập: 1 câu INSERT
+    public String issue(Account account) {
+        String token = newToken();
+        LocalDateTime now = LocalDateTime.now();
+        refreshTokenRepository.save(RefreshToken.builder()
+                .account(account)
+                .tokenHash(hash(token))
+                .createdAt(now)
+                .expiryDate(now.plusDays(ttlDays)) // Hết hạn sau 7 ngày
+                .build());
+        return token;
+    }
+
+    // Refresh: đọc theo hash rồi 1 câu UPDATE có điều kiện để thay hash mới
+    public Rotation rotate(String token) {
+        if (token == null || token.isBlank()) {
+            throw new RuntimeException("Refresh token không tồn tại trong Database!");
+        }
+        String oldHash = hash(token);
+        RefreshToken stored = refreshTokenRepository.findByTokenHash(oldHash)
+                .orElseThrow(() -> new RuntimeException("Refresh token không tồn tại trong Database!"));
+
+        LocalDateTime now = LocalDateTime.now();
+        if (stored.getExpiryDate().isBefore(now)) {
+            refreshTokenRepository.deleteByTokenHash(oldHash); // Xóa token hết hạn
+            throw new RuntimeException("Refresh token đã hết hạn. Vui lòng đăng nhập lại.");
+        }
+
+        String newToken = newToken();
+        if (refreshTokenRepository.rotate(oldHash, hash(newToken), now.plusDays(ttlDays), now) == 0) {
+            // Token vừa bị request khác dùng để refresh
+            throw new RuntimeException("Refresh token đã được sử dụng. Vui lòng đăng nhập lại.");
+        }
+        return new Rotation(stored.getAccount(), newToken);
+    }
+
+    // Dọn token hết hạn theo từng lô nhỏ, mỗi lô 1 transaction riêng
+    @Scheduled(fixedDelayString = "${refresh-token.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        int total = 0;
+        int deleted;
+        do {
+            deleted = refreshTokenRepository.deleteExpiredBatch(now, purgeBatchSize);
+            total += deleted;
+        } while (deleted == purgeBatchSize);
+
+        if (total > 0) {
+            System.out.println("Đã xóa " + total + " refresh token hết hạn");
+        }
+    }
+
+    private String newToken() {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.luxurydecor.identity_service.service;
+
+import com.luxurydecor.identity_service.entity.EmailOutbox;
+import com.luxurydecor.identity_service.enums.EmailStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Gửi email qua 1 SMTP server giả chạy trong cùng process (không cần mạng / Gmail)
+class EmailBatchSenderTest {
+    private FakeSmtpServer smtpServer;
+    private EmailBatchSender batchSender;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        smtpServer = new FakeSmtpServer();
+        smtpServer.start();
+
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(smtpServer.getPort());
+        batchSender = new EmailBatchSender(mailSender, "shop@luxurydecor.test");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        smtpServer.stop();
+    }
+
+    @Test
+    void sendsWholeBatchOverOneConnection() {
+        List<EmailOutbox> emails = List.of(
+                email(1L, "a@luxurydecor.test"),
+                email(2L, "b@luxurydecor.test"),
+                email(3L, "c@luxurydecor.test"));
+
+        Map<Long, String> failures = batchSender.send(emails);
+
+        assertThat(failures).isEmpty();
+        assertThat(smtpServer.recipients)
+                .containsExactly("a@luxurydecor.test", "b@luxurydecor.test", "c@luxurydecor.test");
+        assertThat(smtpServer.connections.get()).isEqualTo(1);
+    }
+
+    @Test
+    void reportsOnlyRejectedRecipientsAsFailed() {
+        List<EmailOutbox> emails = List.of(
+                email(1L, "a@luxurydecor.test"),
+                email(2L, "bounce@luxurydecor.test"),
+                email(3L, "c@luxurydecor.test"));
+
+        Map<Long, String> failures = batchSender.send(emails);
+
+        assertThat(failures).containsOnlyKeys(2L);
+        assertThat(smtpServer.recipients).containsExactly("a@luxurydecor.test", "c@luxurydecor.test");
+    }
+
+    @Test
+    void marksWholeBatchFailedWhenServerIsDown() throws IOException {
+        smtpServer.stop();
+
+        Map<Long, String> failures = batchSender.send(List.of(
+                email(1L, "a@luxurydecor.test"),
+                email(2L, "b@luxurydecor.test")));
+
+        assertThat(failures).containsOnlyKeys(1L, 2L);
+    }
+
+    private static EmailOutbox email(Long id, String recipient) {
+        return EmailOutbox.builder()
+                .id(id)
+                .recipient(recipient)
+                .subject("Mã xác thực đăng ký tài khoản")
+                .body("<p>Mã OTP: 123456</p>")
+                .html(true)
+                .status(EmailStatus.SENDING)
+                .nextAttemptAt(LocalDateTime.now())
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    // SMTP server tối giản: nhận mọi lệnh, từ chối người nhận có tên "bounce"
+    private static class FakeSmtpServer {
+        private final ServerSocket serverSocket;
+        private final List<String> recipients = new CopyOnWriteArrayList<>();
+        private final AtomicInteger connections = new AtomicInteger();
+        private Thread acceptThread;
+
+        FakeSmtpServer() throws IOException {
+            serverSocket = new ServerSocket(0);
+        }
+
+        int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        void start() {
+            acceptThread = Thread.ofVirtual().start(() -> {
+                while (!serverSocket.isClosed()) {
+                    try {
+                        Socket socket = serverSocket.accept();
+                        connections.incrementAndGet();
+                        Thread.ofVirtual().start(() -> handle(socket));
+                    } catch (IOException e) {
+                        return;
+                    }
+                }
+            });
+        }
+
+        void stop() throws IOException {
+            serverSocket.close();
+        }
+
+        private void handle(Socket socket) {
+            try (socket;
+                 BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+                 PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.US_ASCII)) {
+                reply(out, "220 fake-smtp ready");
+                String pendingRecipient = null;
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String command = line.toUpperCase();
+                    if (command.startsWith("EHLO") || command.startsWith("HELO")) {
+                        reply(out, "250 fake-smtp");
+                    } else if (command.startsWith("MAIL FROM")) {
+                        pendingRecipient = null;
+                        reply(out, "250 OK");
+                    } else if (command.startsWith("RCPT TO")) {
+                        String address = line.substring(line.indexOf('<') + 1, line.indexOf('>'));
+                        if (address.startsWith("bounce")) {
+                            reply(out, "550 No such user");
+                        } else {
+                            pendingRecipient = address;
+                            reply(out, "250 OK");
+                        }
+                    } else if (command.equals("DATA")) {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        while ((line = in.readLine()) != null && !line.equals(".")) {
+                            // Bỏ qua nội dung email
+                        }
+                        recipients.add(pendingRecipient);
+                        reply(out, "250 OK");
+                    } else if (command.equals("QUIT")) {
+                        reply(out, "221 Bye");
+                        return;
+                    } else {
+                        reply(out, "250 OK"); // RSET, NOOP, ...
+                    }
+                }
+            } catch (IOException ignored) {
+                // Client đóng kết nối
+            }
+        }
+
+        private static void reply(PrintWriter out, String line) {
+            out.print(line + "\r\n");
+            out.flush();
+        }
+    }
+}
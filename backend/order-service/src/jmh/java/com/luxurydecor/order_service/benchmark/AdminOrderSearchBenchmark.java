@@ -0,0 +1,85 @@
+package com.luxurydecor.order_service.benchmark;
+
+import com.luxurydecor.order_service.search.OrderSearchIndex;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+// Đo độ trễ 1 lần tìm kiếm đơn hàng của admin (1 trang 10 đơn + tổng số) trên 1 triệu đơn
+// - likeScan: duyệt toàn bộ như LIKE '%kw%' trên mã đơn / SĐT + COUNT (cách cũ, chưa tính chi phí I/O của DB)
+// - trigramIndex: qua OrderSearchIndex
+// Chạy: ./mvnw -Pbenchmark test-compile exec:java -Dexec.args=AdminOrderSearchBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class AdminOrderSearchBenchmark {
+    private static final int ORDERS = 1_000_000;
+    private static final int PAGE_SIZE = 10;
+
+    // Mã đơn cụ thể / đầu số điện thoại (nhiều kết quả) / từ khóa 2 ký tự
+    @Param({"od1054321", "0912", "77"})
+    public String keyword;
+
+    private String[] orderIds;
+    private String[] phoneNumbers;
+    private OrderSearchIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        orderIds = new String[ORDERS];
+        phoneNumbers = new String[ORDERS];
+        Object[][] rows = new Object[ORDERS][];
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int i = 0; i < ORDERS; i++) {
+            orderIds[i] = "OD" + (1_000_000 + i);
+            phoneNumbers[i] = "09" + String.format("%08d", random.nextInt(100_000_000));
+            rows[i] = new Object[]{orderIds[i], phoneNumbers[i], start.plusSeconds(60L * i)};
+        }
+
+        // Không cần DB: dựng chỉ mục trực tiếp từ dữ liệu giả lập
+        index = new OrderSearchIndex(null, null);
+        index.rebuildFrom(() -> IntStream.range(0, ORDERS).mapToObj(i -> rows[i]));
+    }
+
+    @Benchmark
+    public List<String> likeScan() {
+        String kw = keyword.toLowerCase(Locale.ROOT);
+        List<String> page = new ArrayList<>();
+        long total = 0;
+        // Dữ liệu đã theo thứ tự ngày đặt tăng dần -> duyệt ngược để có đơn mới nhất trước
+        for (int i = ORDERS - 1; i >= 0; i--) {
+            if (orderIds[i].toLowerCase(Locale.ROOT).contains(kw) || phoneNumbers[i].contains(kw)) {
+                total++;
+                if (page.size() < PAGE_SIZE) {
+                    page.add(orderIds[i]);
+                }
+            }
+        }
+        page.add(String.valueOf(total));
+        return page;
+    }
+
+    @Benchmark
+    public OrderSearchIndex.SearchPage trigramIndex() {
+        return index.search(keyword, 0, PAGE_SIZE);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AdminOrderSearchBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
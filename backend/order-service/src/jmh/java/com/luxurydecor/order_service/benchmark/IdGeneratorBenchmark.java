@@ -0,0 +1,46 @@
+package com.luxurydecor.order_service.benchmark;
+
+import com.luxurydecor.order_service.idgen.SnowflakeIdGenerator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Đo số mã đơn hàng sinh được / giây khi nhiều request đặt hàng cùng lúc
+// - random: "OD" + 6 chữ số ngẫu nhiên (cách cũ, chưa tính vòng kiểm tra trùng trên DB)
+// - snowflake: qua SnowflakeIdGenerator (không trùng, không cần DB)
+// Chạy: ./mvnw -Pbenchmark test-compile exec:java -Dexec.args=IdGeneratorBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@Threads(16)
+public class IdGeneratorBenchmark {
+    private SnowflakeIdGenerator generator;
+
+    @Setup
+    public void setUp() {
+        generator = new SnowflakeIdGenerator(1);
+    }
+
+    @Benchmark
+    public String random() {
+        return "OD" + (100000 + ThreadLocalRandom.current().nextInt(900000));
+    }
+
+    @Benchmark
+    public String snowflake() {
+        return generator.nextId("OD");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(IdGeneratorBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
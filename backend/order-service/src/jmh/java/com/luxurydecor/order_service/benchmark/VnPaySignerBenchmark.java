@@ -0,0 +1,105 @@
+package com.luxurydecor.order_service.benchmark;
+
+import com.luxurydecor.order_service.payment.VnPaySigner;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+// So sánh tạo link thanh toán VNPAY (sắp xếp + encode + ký) giữa cách cũ và VnPaySigner
+// - legacy: Mac.getInstance + init mỗi lần, String.format từng byte, encode mỗi giá trị 2 lần
+// - signer: Mac đã nạp key theo thread, hex bằng bảng tra, encode 1 lần
+// Chạy: ./mvnw -Pbenchmark test-compile exec:java -Dexec.args="VnPaySignerBenchmark -prof gc"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@Threads(8)
+public class VnPaySignerBenchmark {
+    private static final String SECRET = "3J2XQ4QWY48M5UBOBPQI0O6QV04BIXV1";
+
+    private VnPaySigner signer;
+    private Map<String, String> params;
+
+    @Setup
+    public void setUp() {
+        signer = new VnPaySigner(SECRET);
+        params = new HashMap<>();
+        params.put("vnp_Version", "2.1.0");
+        params.put("vnp_Command", "pay");
+        params.put("vnp_TmnCode", "S3IPM93C");
+        params.put("vnp_Amount", "1500000000");
+        params.put("vnp_CurrCode", "VND");
+        params.put("vnp_TxnRef", "OD06JREF9TM046E");
+        params.put("vnp_OrderInfo", "Thanh toan don hang OD06JREF9TM046E");
+        params.put("vnp_OrderType", "other");
+        params.put("vnp_Locale", "vn");
+        params.put("vnp_ReturnUrl", "http://localhost:3000/payment/return");
+        params.put("vnp_IpAddr", "127.0.0.1");
+        params.put("vnp_CreateDate", "20260101120000");
+        params.put("vnp_ExpireDate", "20260101121500");
+
+        if (!legacy().equals(signer.signedQuery(params))) {
+            throw new IllegalStateException("VnPaySigner ký khác cách cũ");
+        }
+    }
+
+    @Benchmark
+    public String legacy() {
+        List<String> fieldNames = new ArrayList<>(params.keySet());
+        Collections.sort(fieldNames);
+        StringBuilder hashData = new StringBuilder();
+        StringBuilder query = new StringBuilder();
+        Iterator<String> itr = fieldNames.iterator();
+        while (itr.hasNext()) {
+            String fieldName = itr.next();
+            String fieldValue = params.get(fieldName);
+            if (fieldValue != null && !fieldValue.isEmpty()) {
+                hashData.append(fieldName).append('=').append(URLEncoder.encode(fieldValue, StandardCharsets.US_ASCII));
+                query.append(URLEncoder.encode(fieldName, StandardCharsets.US_ASCII)).append('=')
+                        .append(URLEncoder.encode(fieldValue, StandardCharsets.US_ASCII));
+                if (itr.hasNext()) {
+                    query.append('&');
+                    hashData.append('&');
+                }
+            }
+        }
+        return query + "&vnp_SecureHash=" + legacyHmacSHA512(SECRET, hashData.toString());
+    }
+
+    @Benchmark
+    public String signer() {
+        return signer.signedQuery(params);
+    }
+
+    // Bản sao VNPayConfig.hmacSHA512 trước khi có VnPaySigner
+    private static String legacyHmacSHA512(String key, String data) {
+        try {
+            Mac hmac512 = Mac.getInstance("HmacSHA512");
+            hmac512.init(new SecretKeySpec(key.getBytes(), "HmacSHA512"));
+            byte[] result = hmac512.doFinal(data.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(2 * result.length);
+            for (byte b : result) {
+                sb.append(String.format("%02x", b & 0xff));
+            }
+            return sb.toString();
+        } catch (Exception ex) {
+            return "";
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(VnPaySignerBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
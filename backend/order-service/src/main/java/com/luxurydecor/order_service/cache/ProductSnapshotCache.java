@@ -0,0 +1,102 @@
+package com.luxurydecor.order_service.cache;
+
+import com.luxurydecor.order_service.dto.response.ExternalProductResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Cache cục bộ thông tin sản phẩm lấy từ product-service
+// - Giới hạn số phần tử (LRU), phần tử ít dùng nhất bị loại khi đầy
+// - Mỗi phần tử chỉ sống trong TTL ngắn để giá / tồn kho không bị cũ lâu
+// - product-service gọi evict() khi sản phẩm thay đổi
+@Component
+public class ProductSnapshotCache {
+    private final int maxSize;
+    private final long ttlMillis;
+    private final LinkedHashMap<Integer, Entry> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    private record Entry(ExternalProductResponse product, long expiresAt) {
+    }
+
+    public ProductSnapshotCache(@Value("${product.cache.max-size:2000}") int maxSize,
+                                @Value("${product.cache.ttl-seconds:30}") long ttlSeconds) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlSeconds * 1000;
+        // accessOrder = true -> thứ tự theo lần truy cập gần nhất (LRU)
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+                if (size() > ProductSnapshotCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // Trả về null nếu chưa có hoặc đã hết hạn
+    public synchronized ExternalProductResponse get(Integer productId) {
+        Entry entry = entries.get(productId);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.expiresAt() < System.currentTimeMillis()) {
+            entries.remove(productId);
+            evictions.increment();
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.product();
+    }
+
+    public synchronized void put(ExternalProductResponse product) {
+        if (product == null || product.getProductId() == null) {
+            return;
+        }
+        entries.put(product.getProductId(), new Entry(product, System.currentTimeMillis() + ttlMillis));
+    }
+
+    // Hook để xóa sản phẩm đã thay đổi giá / tồn kho
+    public synchronized void evict(Collection<Integer> productIds) {
+        for (Integer productId : productIds) {
+            if (entries.remove(productId) != null) {
+                invalidations.increment();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        invalidations.add(entries.size());
+        entries.clear();
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long total = hitCount + missCount;
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("size", entries.size());
+        stats.put("max_size", maxSize);
+        stats.put("ttl_seconds", ttlMillis / 1000);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hit_ratio", total == 0 ? 0.0 : (double) hitCount / total);
+        stats.put("evictions", evictions.sum());
+        stats.put("invalidations", invalidations.sum());
+        return stats;
+    }
+}
@@ -0,0 +1,41 @@
+package com.luxurydecor.order_service.client;
+
+import feign.Capability;
+import feign.Client;
+import feign.MethodMetadata;
+import feign.Request;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Read timeout riêng cho từng thao tác của Feign client (theo tên method)
+// Spring Cloud OpenFeign chỉ cấu hình được timeout cho cả client, thao tác không khai báo thì giữ timeout đó
+// Timeout được áp ngay ở transport (RequestConfig của từng request) nên request quá hạn được hủy thật
+public class OperationTimeoutCapability implements Capability {
+    private final Map<String, Long> readTimeoutsMs;
+
+    public OperationTimeoutCapability(Map<String, Long> readTimeoutsMs) {
+        this.readTimeoutsMs = Map.copyOf(readTimeoutsMs);
+    }
+
+    @Override
+    public Client enrich(Client client) {
+        if (readTimeoutsMs.isEmpty()) {
+            return client;
+        }
+        return (request, options) -> client.execute(request, optionsFor(request, options));
+    }
+
+    Request.Options optionsFor(Request request, Request.Options options) {
+        MethodMetadata metadata = request.requestTemplate() == null ? null : request.requestTemplate().methodMetadata();
+        if (metadata == null || metadata.method() == null) {
+            return options;
+        }
+        Long readTimeoutMs = readTimeoutsMs.get(metadata.method().getName());
+        if (readTimeoutMs == null) {
+            return options;
+        }
+        return new Request.Options(options.connectTimeout(), options.connectTimeoutUnit(),
+                readTimeoutMs, TimeUnit.MILLISECONDS, options.isFollowRedirects());
+    }
+}
@@ -1,23 +1,45 @@
 package com.luxurydecor.order_service.client;
 
 import com.luxurydecor.order_service.dto.request.ProductQuantityRequest;
+import com.luxurydecor.order_service.dto.request.ReserveStockRequest;
 import com.luxurydecor.order_service.dto.response.ExternalProductResponse;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 
 import java.util.List;
 
-@FeignClient(name = "product-service", url = "http://localhost:8082/api/products")
+// Transport, timeout từng thao tác, bulkhead và circuit breaker: xem ProductClientConfig
+// Lỗi / mạch đang mở -> ProductClientFallbackFactory
+@FeignClient(name = "product-service",
+        url = "${product-service.url:http://localhost:8082/api/products}",
+        fallbackFactory = ProductClientFallbackFactory.class)
 public interface ProductClient {
     @GetMapping("/{id}")
     ExternalProductResponse getProductById(@PathVariable("id") Integer id);
 
+    // Lấy nhiều sản phẩm trong 1 request (id không tồn tại sẽ không có trong kết quả)
+    @PostMapping("/batch")
+    List<ExternalProductResponse> getProductsByIds(@RequestBody List<Integer> ids);
+
     @PutMapping("/reduce-stock")
     void reduceStock(@RequestBody List<ProductQuantityRequest> requests);
 
     @PutMapping("/restore-stock")
     void restoreStock(@RequestBody List<ProductQuantityRequest> requests);
+
+    // Giữ hàng cho đơn (chưa trừ kho thật)
+    @PostMapping("/reservations")
+    void reserveStock(@RequestBody ReserveStockRequest request);
+
+    // Chốt giữ hàng -> trừ kho thật
+    @PutMapping("/reservations/{orderId}/commit")
+    void commitReservation(@PathVariable("orderId") String orderId);
+
+    // Trả hàng đã giữ / đã chốt, false nếu đơn không có bản ghi giữ hàng
+    @PutMapping("/reservations/{orderId}/release")
+    Boolean releaseReservation(@PathVariable("orderId") String orderId);
 }
@@ -0,0 +1,98 @@
+package com.luxurydecor.order_service.client;
+
+import com.luxurydecor.order_service.dto.request.ProductQuantityRequest;
+import com.luxurydecor.order_service.dto.request.ReserveStockRequest;
+import com.luxurydecor.order_service.dto.response.ExternalProductResponse;
+import feign.FeignException;
+import org.springframework.cloud.openfeign.FallbackFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Phương án dự phòng khi gọi product-service thất bại / mạch đang mở / bulkhead đã đầy
+// - Lỗi 4xx (sản phẩm không tồn tại, hết hàng...) là câu trả lời thật -> ném lại nguyên lỗi cho bên gọi
+// - Product-service chậm / sập: KHÔNG bịa dữ liệu (giá, tồn kho), ném lỗi rõ ràng thay vì treo thread
+// - Các hàm static dùng chung cho CartService (hiển thị sản phẩm giữ chỗ) và OrderService (báo lỗi đặt hàng)
+@Component
+public class ProductClientFallbackFactory implements FallbackFactory<ProductClient> {
+
+    @Override
+    public ProductClient create(Throwable cause) {
+        return new ProductClient() {
+            @Override
+            public ExternalProductResponse getProductById(Integer id) {
+                throw rethrow(cause);
+            }
+
+            @Override
+            public List<ExternalProductResponse> getProductsByIds(List<Integer> ids) {
+                throw rethrow(cause);
+            }
+
+            @Override
+            public void reduceStock(List<ProductQuantityRequest> requests) {
+                throw rethrow(cause);
+            }
+
+            @Override
+            public void restoreStock(List<ProductQuantityRequest> requests) {
+                throw rethrow(cause);
+            }
+
+            @Override
+            public void reserveStock(ReserveStockRequest request) {
+                throw rethrow(cause);
+            }
+
+            @Override
+            public void commitReservation(String orderId) {
+                throw rethrow(cause);
+            }
+
+            @Override
+            public Boolean releaseReservation(String orderId) {
+                throw rethrow(cause);
+            }
+        };
+    }
+
+    // Lỗi do product-service không phản hồi được (timeout, mất kết nối, 5xx, mạch mở, bulkhead đầy)
+    // chứ không phải câu trả lời 4xx của product-service
+    public static boolean isUnavailable(Throwable error) {
+        if (error == null) {
+            return false;
+        }
+        if (error instanceof FeignException.FeignClientException) {
+            return false;
+        }
+        if (error instanceof ProductServiceUnavailableException) {
+            return true;
+        }
+        return !(error instanceof FeignException feignException) || feignException.status() < 0
+                || feignException.status() >= 500;
+    }
+
+    // Sản phẩm giữ chỗ khi product-service lỗi hoặc sản phẩm không tồn tại (chỉ dùng để hiển thị)
+    public static ExternalProductResponse unavailableProduct(Integer productId) {
+        ExternalProductResponse product = new ExternalProductResponse();
+        product.setProductId(productId);
+        product.setProductName("Sản phẩm lỗi hoặc không tồn tại");
+        product.setPrice(0.0);
+        product.setStockQuantity(0);
+        return product;
+    }
+
+    private static RuntimeException rethrow(Throwable cause) {
+        if (!isUnavailable(cause) && cause instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        return new ProductServiceUnavailableException(cause);
+    }
+
+    // Product-service tạm thời không phục vụ được, bên gọi có thể thử lại sau
+    public static class ProductServiceUnavailableException extends RuntimeException {
+        public ProductServiceUnavailableException(Throwable cause) {
+            super("Hệ thống sản phẩm đang bận, vui lòng thử lại sau", cause);
+        }
+    }
+}
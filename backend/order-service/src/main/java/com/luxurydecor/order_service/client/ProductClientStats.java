@@ -0,0 +1,66 @@
+package com.luxurydecor.order_service.client;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValuePercentile;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cloud.circuitbreaker.resilience4j.Resilience4JCircuitBreakerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Độ trễ từng endpoint của product-service (từ histogram http.client.requests của Feign)
+// và trạng thái circuit breaker của từng thao tác
+// Histogram đầy đủ (bucket) được xuất cho Prometheus tại /actuator/prometheus
+@Component
+@RequiredArgsConstructor
+public class ProductClientStats {
+    private static final String CLIENT_METRIC = "http.client.requests";
+
+    private final MeterRegistry meterRegistry;
+    private final Resilience4JCircuitBreakerFactory circuitBreakerFactory;
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> endpoints = new TreeMap<>();
+        for (Timer timer : meterRegistry.find(CLIENT_METRIC).timers()) {
+            HistogramSnapshot snapshot = timer.takeSnapshot();
+            Map<String, Object> latency = new LinkedHashMap<>();
+            latency.put("count", snapshot.count());
+            latency.put("mean_ms", snapshot.mean(TimeUnit.MILLISECONDS));
+            latency.put("max_ms", snapshot.max(TimeUnit.MILLISECONDS));
+            for (ValuePercentile percentile : snapshot.percentileValues()) {
+                latency.put("p" + Math.round(percentile.percentile() * 100) + "_ms",
+                        percentile.value(TimeUnit.MILLISECONDS));
+            }
+            // Mỗi tổ hợp (method, uri, status...) là 1 timer riêng
+            String key = timer.getId().getTags().stream()
+                    .map(Tag::getValue)
+                    .collect(Collectors.joining(" "));
+            endpoints.put(key, latency);
+        }
+
+        Map<String, Object> circuitBreakers = new TreeMap<>();
+        for (CircuitBreaker circuitBreaker : circuitBreakerFactory.getCircuitBreakerRegistry().getAllCircuitBreakers()) {
+            CircuitBreaker.Metrics metrics = circuitBreaker.getMetrics();
+            Map<String, Object> state = new LinkedHashMap<>();
+            state.put("state", circuitBreaker.getState().name());
+            state.put("failure_rate", metrics.getFailureRate());
+            state.put("slow_call_rate", metrics.getSlowCallRate());
+            state.put("buffered_calls", metrics.getNumberOfBufferedCalls());
+            state.put("not_permitted_calls", metrics.getNumberOfNotPermittedCalls());
+            circuitBreakers.put(circuitBreaker.getName(), state);
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("endpoints", endpoints);
+        stats.put("circuit_breakers", circuitBreakers);
+        return stats;
+    }
+}
@@ -0,0 +1,19 @@
+package com.luxurydecor.order_service.config;
+
+import com.luxurydecor.order_service.idgen.IdGenerator;
+import com.luxurydecor.order_service.idgen.SnowflakeIdGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class IdGeneratorConfig {
+    // Mỗi instance order-service chạy song song phải có worker-id khác nhau (0..1023)
+    // Không có mặc định: thiếu cấu hình thì không khởi động được, tránh 2 instance cùng worker-id 0
+    @Bean
+    @ConditionalOnMissingBean(IdGenerator.class)
+    public IdGenerator idGenerator(@Value("${id-generator.worker-id}") long workerId) {
+        return new SnowflakeIdGenerator(workerId);
+    }
+}
@@ -0,0 +1,44 @@
+package com.luxurydecor.order_service.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+
+// Xác thực lệnh gọi nội bộ giữa các service (vd product-service báo xóa cache) bằng khóa bí mật dùng chung
+// Đúng khóa -> gán ROLE_INTERNAL, các endpoint nội bộ chỉ cho phép role này
+@Component
+public class InternalApiKeyFilter extends OncePerRequestFilter {
+    public static final String HEADER = "X-Internal-Api-Key";
+
+    private final byte[] apiKey;
+
+    public InternalApiKeyFilter(@Value("${internal.api-key}") String apiKey) {
+        if (apiKey == null || apiKey.isBlank()) {
+            throw new IllegalStateException("Chưa cấu hình internal.api-key");
+        }
+        this.apiKey = apiKey.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        String header = request.getHeader(HEADER);
+        // So sánh thời gian hằng để không lộ khóa qua thời gian phản hồi
+        if (header != null && MessageDigest.isEqual(apiKey, header.getBytes(StandardCharsets.UTF_8))) {
+            SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                    "internal", null, List.of(new SimpleGrantedAuthority("ROLE_INTERNAL"))));
+        }
+        filterChain.doFilter(request, response);
+    }
+}
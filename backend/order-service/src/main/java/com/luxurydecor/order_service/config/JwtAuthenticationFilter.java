@@ -1,6 +1,7 @@
 package com.luxurydecor.order_service.config;
 
 import com.luxurydecor.order_service.util.JwtUtils;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -34,9 +35,11 @@ public class JwtAuthenticationFilter extends  OncePerRequestFilter {
 
         jwt = authHeader.substring(7);
 
-        if (jwtUtils.validateToken(jwt)) {
-            userId = jwtUtils.extractUserId(jwt); // Lấy ID từ token
-            String role = jwtUtils.extractRole(jwt);
+        // Parse + verify 1 lần (có cache), lấy luôn userId và role từ claims
+        Claims claims = jwtUtils.getVerifiedClaims(jwt);
+        if (claims != null) {
+            userId = claims.get("userId", Integer.class); // Lấy ID từ token
+            String role = claims.get("role", String.class);
 
             List<SimpleGrantedAuthority> authorities = Collections.singletonList(
                     new SimpleGrantedAuthority("ROLE_" + role)
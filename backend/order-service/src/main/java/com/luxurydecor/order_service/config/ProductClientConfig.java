@@ -0,0 +1,112 @@
+package com.luxurydecor.order_service.config;
+
+import com.luxurydecor.order_service.client.OperationTimeoutCapability;
+import com.luxurydecor.order_service.client.ProductClient;
+import feign.Capability;
+import feign.FeignException;
+import feign.Request;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkheadConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.circuitbreaker.resilience4j.Resilience4JCircuitBreakerFactory;
+import org.springframework.cloud.circuitbreaker.resilience4j.Resilience4JConfigBuilder;
+import org.springframework.cloud.circuitbreaker.resilience4j.Resilience4jBulkheadConfigurationBuilder;
+import org.springframework.cloud.circuitbreaker.resilience4j.Resilience4jBulkheadProvider;
+import org.springframework.cloud.client.circuitbreaker.Customizer;
+import org.springframework.cloud.openfeign.CircuitBreakerNameResolver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Lớp chịu lỗi cho ProductClient
+// - Transport: Apache HttpClient 5 với pool kết nối keep-alive (spring.cloud.openfeign.httpclient.*)
+// - Timeout: connect / read mặc định + read timeout riêng từng thao tác
+// - Bulkhead: giới hạn số lệnh đồng thời của mỗi thao tác để product-service chậm không giữ hết thread
+// - Circuit breaker: mỗi thao tác 1 mạch riêng, tỉ lệ lỗi / chậm vượt ngưỡng thì báo lỗi ngay (fallback)
+@Configuration
+@EnableConfigurationProperties(ProductClientProperties.class)
+public class ProductClientConfig {
+
+    @Bean
+    public Request.Options productClientOptions(ProductClientProperties properties) {
+        return new Request.Options(properties.getConnectTimeoutMs(), TimeUnit.MILLISECONDS,
+                properties.getReadTimeoutMs(), TimeUnit.MILLISECONDS, true);
+    }
+
+    @Bean
+    public Capability operationTimeoutCapability(ProductClientProperties properties) {
+        return new OperationTimeoutCapability(properties.getReadTimeoutsMs());
+    }
+
+    // Tên mạch = <tên client>.<tên method>, vd product-service.getProductById
+    @Bean
+    public CircuitBreakerNameResolver circuitBreakerNameResolver() {
+        return (feignClientName, target, method) -> circuitBreakerId(feignClientName, method);
+    }
+
+    @Bean
+    public Customizer<Resilience4JCircuitBreakerFactory> productCircuitBreakerCustomizer(ProductClientProperties properties) {
+        ProductClientProperties.CircuitBreaker settings = properties.getCircuitBreaker();
+        return factory -> {
+            // Lệnh gọi chạy trên virtual thread, số lệnh đồng thời đã được bulkhead giới hạn
+            factory.configureExecutorService(Executors.newVirtualThreadPerTaskExecutor());
+            for (Method method : operations()) {
+                long timeoutMs = properties.getConnectTimeoutMs() + properties.readTimeoutMs(method.getName());
+                factory.configure(builder -> builder
+                        .circuitBreakerConfig(CircuitBreakerConfig.custom()
+                                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                                .slidingWindowSize(settings.getSlidingWindowSize())
+                                .minimumNumberOfCalls(settings.getMinimumNumberOfCalls())
+                                .failureRateThreshold(settings.getFailureRateThreshold())
+                                .slowCallRateThreshold(settings.getSlowCallRateThreshold())
+                                .slowCallDurationThreshold(Duration.ofMillis(properties.readTimeoutMs(method.getName()) * 8 / 10))
+                                .waitDurationInOpenState(Duration.ofMillis(settings.getWaitOpenMs()))
+                                .permittedNumberOfCallsInHalfOpenState(settings.getHalfOpenCalls())
+                                // 4xx là câu trả lời hợp lệ (không tồn tại, hết hàng), không tính là product-service lỗi
+                                .ignoreExceptions(FeignException.FeignClientException.class)
+                                .build())
+                        // Chỉ là lưới an toàn: timeout của transport luôn hết trước
+                        .timeLimiterConfig(TimeLimiterConfig.custom()
+                                .timeoutDuration(Duration.ofMillis(timeoutMs + 500))
+                                .build()), circuitBreakerId("product-service", method));
+            }
+        };
+    }
+
+    @Bean
+    public Customizer<Resilience4jBulkheadProvider> productBulkheadCustomizer(ProductClientProperties properties) {
+        ProductClientProperties.Bulkhead settings = properties.getBulkhead();
+        String[] ids = operations().stream()
+                .map(method -> circuitBreakerId("product-service", method))
+                .toArray(String[]::new);
+        return provider -> provider.configure(builder -> builder
+                .bulkheadConfig(BulkheadConfig.custom()
+                        .maxConcurrentCalls(settings.getMaxConcurrentCalls())
+                        .maxWaitDuration(Duration.ofMillis(settings.getMaxWaitMs()))
+                        .build())
+                // Dùng khi tắt semaphore bulkhead (spring.cloud.circuitbreaker.resilience4j.enable-semaphore-default-bulkhead)
+                .threadPoolBulkheadConfig(ThreadPoolBulkheadConfig.custom()
+                        .coreThreadPoolSize(Math.max(1, settings.getMaxConcurrentCalls() / 2))
+                        .maxThreadPoolSize(settings.getMaxConcurrentCalls())
+                        .queueCapacity(settings.getMaxConcurrentCalls())
+                        .build()), ids);
+    }
+
+    public static String circuitBreakerId(String feignClientName, Method method) {
+        return feignClientName + "." + method.getName();
+    }
+
+    private static List<Method> operations() {
+        return Arrays.stream(ProductClient.class.getDeclaredMethods())
+                .filter(method -> !method.isDefault() && !method.isSynthetic())
+                .toList();
+    }
+}
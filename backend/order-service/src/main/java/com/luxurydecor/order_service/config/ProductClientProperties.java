@@ -0,0 +1,44 @@
+package com.luxurydecor.order_service.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Cấu hình chịu lỗi cho các lệnh gọi product-service (prefix product-service trong application.yaml)
+@Data
+@ConfigurationProperties(prefix = "product-service")
+public class ProductClientProperties {
+    // Timeout mặc định, thao tác không có trong readTimeoutsMs dùng giá trị này
+    private long connectTimeoutMs = 500;
+    private long readTimeoutMs = 2000;
+
+    // Read timeout theo tên method của ProductClient (getProductById, reserveStock...)
+    private Map<String, Long> readTimeoutsMs = new HashMap<>();
+
+    private Bulkhead bulkhead = new Bulkhead();
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    // Số lệnh gọi đồng thời tối đa cho mỗi thao tác, vượt quá thì chờ tối đa maxWaitMs rồi báo lỗi ngay
+    @Data
+    public static class Bulkhead {
+        private int maxConcurrentCalls = 50;
+        private long maxWaitMs = 100;
+    }
+
+    @Data
+    public static class CircuitBreaker {
+        private int slidingWindowSize = 20;
+        private int minimumNumberOfCalls = 10;
+        private float failureRateThreshold = 50;
+        // Tỉ lệ lệnh chậm (>= 80% timeout của thao tác) để mở mạch
+        private float slowCallRateThreshold = 80;
+        private long waitOpenMs = 10000;
+        private int halfOpenCalls = 3;
+    }
+
+    public long readTimeoutMs(String operation) {
+        return readTimeoutsMs.getOrDefault(operation, readTimeoutMs);
+    }
+}
@@ -1,6 +1,7 @@
 package com.luxurydecor.order_service.config;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -17,17 +18,26 @@ import java.util.List;
 @EnableWebSecurity
 @EnableMethodSecurity
 public class SecurityConfig {
+    @Value("${management.server.port:-1}")
+    private int managementPort;
+
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http, JwtAuthenticationFilter jwtAuthFilter) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, JwtAuthenticationFilter jwtAuthFilter,
+                                                   InternalApiKeyFilter internalApiKeyFilter) throws Exception {
         http
                 .csrf(csrf -> csrf.disable())
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/api/public/**").permitAll()
+                        .requestMatchers("/api/internal/product-cache/evict").hasRole("INTERNAL") // product-service gọi nội bộ, kèm X-Internal-Api-Key
+                        .requestMatchers("/payment/vnpay-ipn").permitAll() // VNPAY gọi trực tiếp, xác thực bằng chữ ký
+                        // Actuator chỉ chạy trên cổng quản trị (management.server.port), không mở trên cổng public
+                        .requestMatchers(request -> request.getLocalPort() == managementPort).permitAll()
                         .requestMatchers("/api/carts/**", "/payment/**").authenticated()
                         .anyRequest().authenticated()
                 )
-                .addFilterBefore(jwtAuthFilter, org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtAuthFilter, org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter.class)
+                .addFilterBefore(internalApiKeyFilter, JwtAuthenticationFilter.class);
 
         return http.build();
     }
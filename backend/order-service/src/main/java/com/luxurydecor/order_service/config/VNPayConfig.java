@@ -3,9 +3,6 @@ package com.luxurydecor.order_service.config;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.context.annotation.Configuration;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
-import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 @Configuration
@@ -16,28 +13,6 @@ public class VNPayConfig {
     public static String vnp_HashSecret = "3J2XQ4QWY48M5UBOBPQI0O6QV04BIXV1"; // Secret test mặc định
     public static String vnp_ApiUrl = "https://sandbox.vnpayment.vn/merchant_webapi/api/transaction";
 
-    // Hàm mã hóa dữ liệu (QUAN TRỌNG)
-    public static String hmacSHA512(String key, String data) {
-        try {
-            if (key == null || data == null) {
-                throw new NullPointerException();
-            }
-            final Mac hmac512 = Mac.getInstance("HmacSHA512");
-            byte[] hmacKeyBytes = key.getBytes();
-            final SecretKeySpec secretKey = new SecretKeySpec(hmacKeyBytes, "HmacSHA512");
-            hmac512.init(secretKey);
-            byte[] dataBytes = data.getBytes(StandardCharsets.UTF_8);
-            byte[] result = hmac512.doFinal(dataBytes);
-            StringBuilder sb = new StringBuilder(2 * result.length);
-            for (byte b : result) {
-                sb.append(String.format("%02x", b & 0xff));
-            }
-            return sb.toString();
-        } catch (Exception ex) {
-            return "";
-        }
-    }
-
     // Hàm lấy IP người dùng
     public static String getIpAddress(HttpServletRequest request) {
 //        String ipAdress;
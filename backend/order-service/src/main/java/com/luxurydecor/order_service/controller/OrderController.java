@@ -1,16 +1,25 @@
 package com.luxurydecor.order_service.controller;
 
 import com.luxurydecor.order_service.dto.request.PlaceOrderRequest;
+import com.luxurydecor.order_service.dto.response.CursorPageResponse;
 import com.luxurydecor.order_service.dto.response.OrderResponse;
 import com.luxurydecor.order_service.dto.response.OrderStatsResponse;
 import com.luxurydecor.order_service.dto.response.PageResponse;
+import com.luxurydecor.order_service.entity.DailyRevenue;
 import com.luxurydecor.order_service.service.OrderService;
+import com.luxurydecor.order_service.service.OrderSnapshotBackfillService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
@@ -18,7 +27,10 @@ import java.util.Map;
 @RequestMapping("/api/orders")
 @RequiredArgsConstructor
 public class OrderController {
+    private static final long HISTORY_STREAM_TIMEOUT_MS = 60_000;
+
     private final OrderService orderService;
+    private final OrderSnapshotBackfillService orderSnapshotBackfillService;
 
     private Integer getCurrentUserId() {
         return (Integer) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
@@ -38,6 +50,41 @@ public class OrderController {
         return ResponseEntity.ok(orderService.getMyOrders(userId));
     }
 
+    // Lịch sử đơn hàng có phân trang
+    // URL: GET /api/orders/history/page?page=0&size=10
+    @GetMapping("/history/page")
+    public ResponseEntity<PageResponse<OrderResponse>> getMyOrdersPage(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size
+    ) {
+        Integer userId = getCurrentUserId();
+        return ResponseEntity.ok(orderService.getMyOrdersPage(userId, page, size));
+    }
+
+    // Lịch sử đơn hàng dạng stream NDJSON (mỗi dòng 1 đơn), client hiển thị dần khi nhận
+    @GetMapping(value = "/history/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseBodyEmitter streamMyOrders(@RequestParam(defaultValue = "20") int pageSize) {
+        Integer userId = getCurrentUserId();
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(HISTORY_STREAM_TIMEOUT_MS);
+
+        Thread.ofVirtual().start(() -> {
+            try {
+                orderService.streamMyOrders(userId, pageSize, order -> {
+                    try {
+                        emitter.send(order, MediaType.APPLICATION_JSON);
+                        emitter.send("\n", MediaType.TEXT_PLAIN);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e); // Client đã ngắt kết nối
+                    }
+                });
+                emitter.complete();
+            } catch (Exception e) {
+                emitter.completeWithError(e);
+            }
+        });
+        return emitter;
+    }
+
     // Chi tiết order
     @GetMapping("/{orderId}")
     public ResponseEntity<OrderResponse> getOrderById(@PathVariable String orderId) {
@@ -63,6 +110,19 @@ public class OrderController {
         return ResponseEntity.ok(orderService.getAllOrders(page, size, keyword));
     }
 
+    // Danh sách đơn hàng kiểu cuộn vô hạn (dùng cursor thay cho số trang)
+    // URL: GET /api/orders/admin/scroll?size=20&cursor=...
+    @GetMapping("/admin/scroll")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CursorPageResponse<OrderResponse>> scrollOrders(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String keyword,
+            @RequestParam(defaultValue = "false") boolean withTotal
+    ) {
+        return ResponseEntity.ok(orderService.scrollOrders(cursor, size, keyword, withTotal));
+    }
+
     // Cập nhật trạng thái đơn hàng
     // URL: PUT /api/orders/admin/OD123456/status?status=CONFIRMED
     @PutMapping("/admin/{orderId}/status")
@@ -80,6 +140,20 @@ public class OrderController {
         return ResponseEntity.ok(orderService.getOrderStats());
     }
 
+    // Dựng lại bảng thống kê từ dữ liệu đơn hàng (khi nghi ngờ số liệu bị lệch)
+    @PostMapping("/stats/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<OrderStatsResponse> rebuildStats() {
+        return ResponseEntity.ok(orderService.rebuildOrderStats());
+    }
+
+    // Điền tên sản phẩm cho chi tiết đơn cũ (tự chạy khi khởi động, gọi tay khi cần chạy lại)
+    @PostMapping("/snapshots/backfill")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Integer>> backfillSnapshots() {
+        return ResponseEntity.ok(Map.of("updated", orderSnapshotBackfillService.backfill()));
+    }
+
     @GetMapping("/revenue-chart")
     public ResponseEntity<List<Map<String, Object>>> getRevenueChart(
             @RequestParam(defaultValue = "2026") int year // Mặc định năm hiện tại
@@ -87,4 +161,15 @@ public class OrderController {
         return ResponseEntity.ok(orderService.getMonthlyRevenue(year));
     }
 
+    // Doanh thu theo ngày trong khoảng
+    // URL: GET /api/orders/revenue-daily?from=2026-01-01&to=2026-01-31
+    @GetMapping("/revenue-daily")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<DailyRevenue>> getDailyRevenue(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        return ResponseEntity.ok(orderService.getDailyRevenue(from, to));
+    }
+
 }
@@ -9,7 +9,6 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.io.UnsupportedEncodingException;
 import java.util.Map;
 
 @RestController
@@ -24,7 +23,7 @@ public class PaymentController {
             @RequestParam long amount,
             @RequestParam String orderInfo,
             @RequestParam String orderId
-    ) throws UnsupportedEncodingException {
+    ) {
 
         String paymentUrl = paymentService.createVnPayPayment(request, amount, orderInfo,  orderId);
 
@@ -36,4 +35,10 @@ public class PaymentController {
         Map<String, Object> result = paymentService.paymentCallback(queryParams);
         return ResponseEntity.ok(result);
     }
+
+    // VNPAY gọi server-to-server sau mỗi giao dịch (cấu hình IPN URL trên cổng merchant)
+    @GetMapping("/vnpay-ipn")
+    public ResponseEntity<Map<String, String>> vnPayIpn(@RequestParam Map<String, String> queryParams) {
+        return ResponseEntity.ok(paymentService.handleIpn(queryParams));
+    }
 }
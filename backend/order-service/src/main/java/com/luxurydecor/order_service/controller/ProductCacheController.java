@@ -0,0 +1,31 @@
+package com.luxurydecor.order_service.controller;
+
+import com.luxurydecor.order_service.cache.ProductSnapshotCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/internal/product-cache")
+@RequiredArgsConstructor
+public class ProductCacheController {
+    private final ProductSnapshotCache productCache;
+
+    // product-service gọi khi sản phẩm thay đổi giá / tồn kho / bị xóa
+    @PostMapping("/evict")
+    public ResponseEntity<Void> evict(@RequestBody List<Integer> productIds) {
+        productCache.evict(productIds);
+        return ResponseEntity.ok().build();
+    }
+
+    // Thống kê hit / miss / eviction của cache
+    @GetMapping("/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        return ResponseEntity.ok(productCache.getStats());
+    }
+}
@@ -0,0 +1,23 @@
+package com.luxurydecor.order_service.controller;
+
+import com.luxurydecor.order_service.client.ProductClientStats;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/internal/product-client")
+@RequiredArgsConstructor
+public class ProductClientController {
+    private final ProductClientStats productClientStats;
+
+    // Độ trễ từng endpoint của product-service + trạng thái circuit breaker
+    @GetMapping("/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        return ResponseEntity.ok(productClientStats.getStats());
+    }
+}
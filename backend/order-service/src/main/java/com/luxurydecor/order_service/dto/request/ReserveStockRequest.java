@@ -0,0 +1,18 @@
+package com.luxurydecor.order_service.dto.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReserveStockRequest {
+    private String orderId;
+    private Integer ttlMinutes; // Hết thời gian này mà chưa chốt thì product-service tự trả hàng
+    private List<ProductQuantityRequest> items;
+}
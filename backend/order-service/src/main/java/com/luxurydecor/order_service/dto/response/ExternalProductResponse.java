@@ -9,4 +9,5 @@ public class ExternalProductResponse {
     private Double price;
     private String image;
     private Integer stockQuantity;
+    private Integer availableQuantity; // Tồn kho trừ phần đang được giữ cho đơn khác
 }
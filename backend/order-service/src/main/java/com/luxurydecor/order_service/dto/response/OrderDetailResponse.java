@@ -7,7 +7,7 @@ import lombok.Data;
 @Builder
 public class OrderDetailResponse {
     private Integer productId;
-    private String productName; // thuộc tinhs này gọi bên product-service
+    private String productName; // Tên lưu sẵn trong đơn lúc đặt hàng
     private Integer quantity;
     private Double price;
     private Double totalPrice;
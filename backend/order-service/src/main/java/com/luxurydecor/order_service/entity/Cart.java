@@ -1,10 +1,10 @@
 package com.luxurydecor.order_service.entity;
 
+import com.luxurydecor.order_service.idgen.EntityIds;
 import jakarta.persistence.*;
 import lombok.*;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.concurrent.ThreadLocalRandom;
 
 @Entity
 @Table(name = "carts", schema = "order_schema")
@@ -32,7 +32,7 @@ public class Cart {
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
         if (this.cartId == null) {
-            this.cartId = "NR" + (100000 + ThreadLocalRandom.current().nextInt(900000));
+            this.cartId = EntityIds.next(EntityIds.CART_PREFIX);
         }
     }
 
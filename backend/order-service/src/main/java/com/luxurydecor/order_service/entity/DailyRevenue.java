@@ -0,0 +1,23 @@
+package com.luxurydecor.order_service.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+// Doanh thu đã tổng hợp theo ngày (ngày đặt đơn) của các đơn đã giao thành công
+@Entity
+@Table(name = "daily_revenue", schema = "order_schema")
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor @Builder
+public class DailyRevenue {
+    @Id
+    @Column(name = "revenue_date")
+    private LocalDate revenueDate;
+
+    @Column(nullable = false)
+    private Double revenue;
+
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount;
+}
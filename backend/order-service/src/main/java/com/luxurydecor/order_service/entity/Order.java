@@ -1,14 +1,19 @@
 package com.luxurydecor.order_service.entity;
 
 import com.luxurydecor.order_service.enums.OrderStatus;
+import com.luxurydecor.order_service.idgen.EntityIds;
 import jakarta.persistence.*;
 import lombok.*;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.concurrent.ThreadLocalRandom;
 
 @Entity
-@Table(name = "orders", schema = "order_schema")
+@Table(name = "orders", schema = "order_schema", indexes = {
+        // Phục vụ phân trang keyset theo (orderDate, orderId)
+        @Index(name = "idx_orders_order_date_id", columnList = "order_date, order_id"),
+        // Lịch sử đơn của 1 user, mới nhất trước
+        @Index(name = "idx_orders_user_order_date", columnList = "user_id, order_date, order_id")
+})
 @Getter @Setter
 @NoArgsConstructor @AllArgsConstructor @Builder
 public class Order {
@@ -47,6 +52,10 @@ public class Order {
     @Column(name = "payment_status")
     private String paymentStatus;
 
+    // vnp_CreateDate của link thanh toán VNPAY gần nhất, querydr phải gửi lại đúng giá trị này
+    @Column(name = "vnp_create_date")
+    private String vnpCreateDate;
+
     @Column(name = "shipping_date")
     private LocalDateTime shippingDate;
 
@@ -64,9 +73,8 @@ public class Order {
         if (status == null) status = OrderStatus.PENDING;
         if (active == null) active = true;
         if (this.orderId == null) {
-            // Random từ 100000 đến 999999
-            int randomNum = 100000 + ThreadLocalRandom.current().nextInt(900000);
-            this.orderId = "OD" + randomNum;
+            // Mã tăng dần theo thời gian, không trùng, không cần kiểm tra DB
+            this.orderId = EntityIds.next(EntityIds.ORDER_PREFIX);
         }
     }
 }
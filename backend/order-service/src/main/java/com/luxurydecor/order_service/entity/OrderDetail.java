@@ -5,7 +5,8 @@ import jakarta.persistence.*;
 import lombok.*;
 
 @Entity
-@Table(name = "order_details", schema = "order_schema")
+@Table(name = "order_details", schema = "order_schema",
+        indexes = @Index(name = "idx_order_details_product_id", columnList = "product_id"))
 @Getter @Setter
 @NoArgsConstructor @AllArgsConstructor @Builder
 public class OrderDetail {
@@ -21,6 +22,9 @@ public class OrderDetail {
     @Column(name = "product_id", nullable = false)
     private Integer productId;
 
+    @Column(name = "product_name_snapshot")
+    private String productName; // Tên sản phẩm tại thời điểm mua
+
     @Column(name = "price_snapshot")
     private Double price; // Giá tại thời điểm mua
     private Integer quantity;
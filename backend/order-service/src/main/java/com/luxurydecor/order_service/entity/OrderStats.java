@@ -0,0 +1,22 @@
+package com.luxurydecor.order_service.entity;
+
+import com.luxurydecor.order_service.enums.OrderStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+// Bảng tổng hợp: mỗi trạng thái 1 dòng (số đơn + tổng tiền), cập nhật mỗi lần đơn đổi trạng thái
+@Entity
+@Table(name = "order_stats", schema = "order_schema")
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor @Builder
+public class OrderStats {
+    @Id
+    @Enumerated(EnumType.STRING)
+    private OrderStatus status;
+
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount;
+
+    @Column(name = "total_money", nullable = false)
+    private Double totalMoney;
+}
@@ -0,0 +1,37 @@
+package com.luxurydecor.order_service.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Sổ ghi các callback VNPAY đã xử lý, mỗi (vnp_TxnRef, vnp_TransactionNo) chỉ 1 dòng
+// Callback trùng (F5 trình duyệt, IPN gửi lại) đọc lại kết quả đã ghi, không đụng tới đơn hàng
+@Entity
+@Table(name = "payment_callbacks", schema = "order_schema",
+        uniqueConstraints = @UniqueConstraint(name = "uk_payment_callbacks_txn", columnNames = {"txn_ref", "transaction_no"}))
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor @Builder
+public class PaymentCallback {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "txn_ref", nullable = false)
+    private String txnRef; // Mã đơn hàng đã gửi sang VNPAY
+
+    @Column(name = "transaction_no", nullable = false)
+    private String transactionNo; // Mã giao dịch phía VNPAY
+
+    @Column(name = "response_code")
+    private String responseCode;
+
+    @Column(name = "result_status")
+    private String resultStatus; // success / failed / error
+
+    @Column(name = "result_message")
+    private String resultMessage;
+
+    @Column(name = "received_at")
+    private LocalDateTime receivedAt;
+}
@@ -0,0 +1,25 @@
+package com.luxurydecor.order_service.idgen;
+
+import org.springframework.stereotype.Component;
+
+// Cầu nối cho @PrePersist của entity (không được inject bean) tới IdGenerator đang dùng
+@Component
+public class EntityIds {
+    public static final String ORDER_PREFIX = "OD";
+    public static final String CART_PREFIX = "NR";
+
+    // Không có giá trị mặc định: worker-id cố định (0) ở nhiều instance sẽ sinh trùng mã đơn
+    private static volatile IdGenerator generator;
+
+    public EntityIds(IdGenerator idGenerator) {
+        generator = idGenerator;
+    }
+
+    public static String next(String prefix) {
+        IdGenerator current = generator;
+        if (current == null) {
+            throw new IllegalStateException("IdGenerator chưa được khởi tạo");
+        }
+        return current.nextId(prefix);
+    }
+}
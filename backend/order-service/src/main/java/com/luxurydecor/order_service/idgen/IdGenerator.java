@@ -0,0 +1,8 @@
+package com.luxurydecor.order_service.idgen;
+
+// Sinh mã cho thực thể (đơn hàng, giỏ hàng...), không truy vấn DB cho từng mã
+// Muốn đổi cách sinh mã chỉ cần khai báo 1 bean IdGenerator khác
+public interface IdGenerator {
+    // Mã có tiền tố dễ đọc, ví dụ "OD" + phần sinh ra
+    String nextId(String prefix);
+}
@@ -0,0 +1,66 @@
+package com.luxurydecor.order_service.idgen;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Mã kiểu Snowflake 63 bit: | 41 bit mili giây từ 2025-01-01 | 10 bit workerId | 12 bit sequence |
+// - Không trùng giữa các instance (mỗi instance 1 workerId) và tăng dần theo thời gian -> insert B-tree luôn ở cuối
+// - Mã hóa Crockford base32 độ dài cố định 13 ký tự nên so sánh chuỗi cũng đúng thứ tự thời gian
+// - Không khóa: trạng thái (mốc thời gian, sequence) nằm trong 1 AtomicLong, cập nhật bằng CAS
+public class SnowflakeIdGenerator implements IdGenerator {
+    private static final long EPOCH_MS = 1_735_689_600_000L; // 2025-01-01T00:00:00Z
+    private static final int WORKER_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    public static final long MAX_WORKER_ID = (1L << WORKER_BITS) - 1;
+
+    private static final char[] CROCKFORD = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int ENCODED_LENGTH = 13; // 13 * 5 bit >= 63 bit
+
+    private final long workerId;
+    private final LongSupplier clock;
+    // (mốc thời gian << 12 | sequence) của mã vừa cấp
+    private final AtomicLong lastState = new AtomicLong();
+
+    public SnowflakeIdGenerator(long workerId) {
+        this(workerId, System::currentTimeMillis);
+    }
+
+    public SnowflakeIdGenerator(long workerId, LongSupplier clock) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("workerId phải nằm trong khoảng 0.." + MAX_WORKER_ID);
+        }
+        this.workerId = workerId;
+        this.clock = clock;
+    }
+
+    @Override
+    public String nextId(String prefix) {
+        return prefix + encode(nextLong());
+    }
+
+    public long nextLong() {
+        while (true) {
+            long last = lastState.get();
+            long now = clock.getAsLong() - EPOCH_MS;
+            // Sang mili giây mới -> sequence về 0
+            // Cùng mili giây, hết sequence hoặc đồng hồ bị lùi -> cộng tiếp trên trạng thái cũ
+            // (tràn sequence thì "mượn" mili giây kế tiếp), nhờ vậy mã không bao giờ trùng hay giảm
+            long next = now > (last >>> SEQUENCE_BITS) ? now << SEQUENCE_BITS : last + 1;
+            if (lastState.compareAndSet(last, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                long sequence = next & SEQUENCE_MASK;
+                return (timestamp << (WORKER_BITS + SEQUENCE_BITS)) | (workerId << SEQUENCE_BITS) | sequence;
+            }
+        }
+    }
+
+    static String encode(long value) {
+        char[] chars = new char[ENCODED_LENGTH];
+        for (int i = ENCODED_LENGTH - 1; i >= 0; i--) {
+            chars[i] = CROCKFORD[(int) (value & 31)];
+            value >>>= 5;
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,127 @@
+package com.luxurydecor.order_service.payment;
+
+import com.luxurydecor.order_service.config.VNPayConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+// Gọi API querydr của VNPAY để hỏi trạng thái thật của 1 giao dịch
+// Dùng cho bộ đối soát khi trình duyệt không quay về callback và IPN không tới
+@Component
+public class VnPayQueryClient {
+    private static final String VERSION = "2.1.0";
+    private static final String COMMAND = "querydr";
+    private static final ZoneId VN_ZONE = ZoneId.of("Asia/Ho_Chi_Minh");
+    private static final DateTimeFormatter VNP_DATE = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
+    private final VnPaySigner signer;
+    private final String apiUrl;
+    private final String tmnCode;
+    private final RestClient restClient;
+
+    // Kết quả querydr: responseCode là kết quả của lệnh truy vấn, transactionStatus là trạng thái giao dịch
+    public record QueryResult(String txnRef, String responseCode, String transactionStatus,
+                              String transactionNo, Long amount) {
+        // VNPAY có ghi nhận giao dịch
+        public boolean found() {
+            return "00".equals(responseCode);
+        }
+
+        public boolean paid() {
+            return found() && "00".equals(transactionStatus);
+        }
+
+        // Giao dịch chưa hoàn tất (khách chưa thanh toán xong)
+        public boolean inProgress() {
+            return found() && "01".equals(transactionStatus);
+        }
+    }
+
+    @Autowired
+    public VnPayQueryClient(VnPaySigner signer,
+                            @Value("${vnpay.api-url}") String apiUrl,
+                            @Value("${vnpay.query.timeout-ms:5000}") long timeoutMs) {
+        this(signer, apiUrl, VNPayConfig.vnp_TmnCode, timeoutMs);
+    }
+
+    public VnPayQueryClient(VnPaySigner signer, String apiUrl, String tmnCode, long timeoutMs) {
+        this.signer = signer;
+        this.apiUrl = apiUrl;
+        this.tmnCode = tmnCode;
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(Duration.ofMillis(timeoutMs));
+        requestFactory.setReadTimeout(Duration.ofMillis(timeoutMs));
+        this.restClient = RestClient.builder().requestFactory(requestFactory).build();
+    }
+
+    // transactionDate: vnp_CreateDate đã gửi khi tạo link thanh toán
+    public QueryResult query(String txnRef, String transactionDate) {
+        String requestId = UUID.randomUUID().toString().replace("-", "");
+        String createDate = LocalDateTime.now(VN_ZONE).format(VNP_DATE);
+        String ipAddr = "127.0.0.1";
+        String orderInfo = "Doi soat don hang " + txnRef;
+
+        Map<String, String> body = new LinkedHashMap<>();
+        body.put("vnp_RequestId", requestId);
+        body.put("vnp_Version", VERSION);
+        body.put("vnp_Command", COMMAND);
+        body.put("vnp_TmnCode", tmnCode);
+        body.put("vnp_TxnRef", txnRef);
+        body.put("vnp_OrderInfo", orderInfo);
+        body.put("vnp_TransactionDate", transactionDate);
+        body.put("vnp_CreateDate", createDate);
+        body.put("vnp_IpAddr", ipAddr);
+        // Thứ tự các trường ký theo tài liệu querydr của VNPAY
+        body.put("vnp_SecureHash", signer.sign(String.join("|", requestId, VERSION, COMMAND, tmnCode,
+                txnRef, transactionDate, createDate, ipAddr, orderInfo)));
+
+        Map<String, Object> response = restClient.post()
+                .uri(apiUrl)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body)
+                .retrieve()
+                .body(new ParameterizedTypeReference<Map<String, Object>>() {
+                });
+        if (response == null) {
+            throw new RuntimeException("querydr không trả về dữ liệu");
+        }
+
+        String expectedHash = signer.sign(String.join("|",
+                field(response, "vnp_ResponseId"), field(response, "vnp_Command"),
+                field(response, "vnp_ResponseCode"), field(response, "vnp_Message"),
+                field(response, "vnp_TmnCode"), field(response, "vnp_TxnRef"),
+                field(response, "vnp_Amount"), field(response, "vnp_BankCode"),
+                field(response, "vnp_PayDate"), field(response, "vnp_TransactionNo"),
+                field(response, "vnp_TransactionType"), field(response, "vnp_TransactionStatus"),
+                field(response, "vnp_OrderInfo"), field(response, "vnp_PromotionCode"),
+                field(response, "vnp_PromotionAmount")));
+        if (!expectedHash.equalsIgnoreCase(field(response, "vnp_SecureHash"))) {
+            throw new RuntimeException("Chữ ký phản hồi querydr không hợp lệ: " + txnRef);
+        }
+
+        String amount = field(response, "vnp_Amount");
+        return new QueryResult(
+                txnRef,
+                field(response, "vnp_ResponseCode"),
+                field(response, "vnp_TransactionStatus"),
+                field(response, "vnp_TransactionNo"),
+                amount.isEmpty() ? null : Long.valueOf(amount));
+    }
+
+    private static String field(Map<String, Object> response, String name) {
+        return Objects.toString(response.get(name), "");
+    }
+}
@@ -0,0 +1,103 @@
+package com.luxurydecor.order_service.payment;
+
+import com.luxurydecor.order_service.config.VNPayConfig;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Ký / kiểm tra chữ ký HMAC-SHA512 cho VNPAY
+// - Mac được khởi tạo với secret 1 lần, mỗi thread dùng 1 bản sao riêng (Mac không thread-safe)
+// - Hex bằng bảng tra thay cho String.format từng byte
+// - Mỗi giá trị chỉ URL-encode 1 lần: với VNPAY 2.1.0 chuỗi ký và query string giống hệt nhau
+@Component
+public class VnPaySigner {
+    private static final String ALGORITHM = "HmacSHA512";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final String SECURE_HASH = "vnp_SecureHash";
+    private static final String SECURE_HASH_TYPE = "vnp_SecureHashType";
+
+    // Bản mẫu đã nạp key, các thread clone ra để khỏi getInstance + init lại
+    private final Mac prototype;
+    private final ThreadLocal<Mac> threadMac = ThreadLocal.withInitial(this::newMac);
+
+    public VnPaySigner() {
+        this(VNPayConfig.vnp_HashSecret);
+    }
+
+    public VnPaySigner(String secret) {
+        try {
+            prototype = Mac.getInstance(ALGORITHM);
+            prototype.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Không khởi tạo được " + ALGORITHM, e);
+        }
+    }
+
+    // Chữ ký (hex thường) của chuỗi dữ liệu
+    public String sign(String data) {
+        byte[] digest = threadMac.get().doFinal(data.getBytes(StandardCharsets.UTF_8));
+        return toHex(digest);
+    }
+
+    // Query string đã sắp xếp a-z, bỏ giá trị rỗng, kèm vnp_SecureHash ở cuối
+    public String signedQuery(Map<String, String> params) {
+        StringBuilder query = canonicalQuery(params);
+        String secureHash = sign(query.toString());
+        return query.append('&').append(SECURE_HASH).append('=').append(secureHash).toString();
+    }
+
+    // Kiểm tra callback: ký lại các tham số (trừ vnp_SecureHash / vnp_SecureHashType) rồi so sánh thời gian hằng
+    public boolean verify(Map<String, String> params) {
+        String secureHash = params.get(SECURE_HASH);
+        if (secureHash == null || secureHash.isEmpty()) {
+            return false;
+        }
+        String expected = sign(canonicalQuery(params).toString());
+        return MessageDigest.isEqual(
+                expected.getBytes(StandardCharsets.US_ASCII),
+                secureHash.toLowerCase().getBytes(StandardCharsets.US_ASCII));
+    }
+
+    // fieldName=encodedValue&... theo thứ tự a-z (tên tham số VNPAY đều là ASCII nên không cần encode)
+    private static StringBuilder canonicalQuery(Map<String, String> params) {
+        StringBuilder query = new StringBuilder(512);
+        for (Map.Entry<String, String> param : new TreeMap<>(params).entrySet()) {
+            String name = param.getKey();
+            String value = param.getValue();
+            if (value == null || value.isEmpty() || SECURE_HASH.equals(name) || SECURE_HASH_TYPE.equals(name)) {
+                continue;
+            }
+            if (!query.isEmpty()) {
+                query.append('&');
+            }
+            query.append(name).append('=').append(URLEncoder.encode(value, StandardCharsets.US_ASCII));
+        }
+        return query;
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[2 * i] = HEX[(bytes[i] >> 4) & 0x0f];
+            chars[2 * i + 1] = HEX[bytes[i] & 0x0f];
+        }
+        return new String(chars);
+    }
+
+    private Mac newMac() {
+        try {
+            synchronized (prototype) {
+                return (Mac) prototype.clone();
+            }
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("Provider không hỗ trợ clone " + ALGORITHM, e);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.luxurydecor.order_service.repository;
+
+import com.luxurydecor.order_service.entity.DailyRevenue;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailyRevenueRepository extends JpaRepository<DailyRevenue, LocalDate> {
+    // Truy vấn theo khoảng ngày trên khóa chính (dùng index), tối đa 366 dòng / năm
+    List<DailyRevenue> findByRevenueDateBetweenOrderByRevenueDateAsc(LocalDate from, LocalDate to);
+
+    // Cộng dồn (có thể âm) doanh thu của 1 ngày, tạo dòng nếu chưa có
+    @Modifying
+    @Query(value = """
+        INSERT INTO order_schema.daily_revenue (revenue_date, revenue, order_count)
+        VALUES (:day, :revenueDelta, :countDelta)
+        ON CONFLICT (revenue_date) DO UPDATE
+        SET revenue = daily_revenue.revenue + EXCLUDED.revenue,
+            order_count = daily_revenue.order_count + EXCLUDED.order_count
+    """, nativeQuery = true)
+    void addDelta(@Param("day") LocalDate day,
+                  @Param("revenueDelta") double revenueDelta,
+                  @Param("countDelta") long countDelta);
+
+    // Chặn addDelta (ghi) tới hết transaction, vẫn cho đọc; gọi trước khi xóa / dựng lại bảng
+    // để delta của đơn đang xử lý không bị cộng lên snapshot đã tính đơn đó
+    @Modifying
+    @Query(value = "LOCK TABLE order_schema.daily_revenue IN EXCLUSIVE MODE", nativeQuery = true)
+    void lockForRebuild();
+
+    @Modifying
+    @Query(value = "DELETE FROM order_schema.daily_revenue", nativeQuery = true)
+    void deleteAllRows();
+
+    // Dựng lại từ dữ liệu đơn hàng cũ (chỉ chạy 1 lần / khi cần sửa số liệu)
+    @Modifying
+    @Query(value = """
+        INSERT INTO order_schema.daily_revenue (revenue_date, revenue, order_count)
+        SELECT CAST(order_date AS DATE), COALESCE(SUM(total_money), 0), COUNT(*)
+        FROM order_schema.orders
+        WHERE status = 'DELIVERED' AND order_date IS NOT NULL
+        GROUP BY CAST(order_date AS DATE)
+    """, nativeQuery = true)
+    void rebuildFromOrders();
+}
@@ -0,0 +1,28 @@
+package com.luxurydecor.order_service.repository;
+
+import com.luxurydecor.order_service.entity.OrderDetail;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface OrderDetailRepository extends JpaRepository<OrderDetail, Integer> {
+    // Các productId (tăng dần, sau mốc afterProductId) còn dòng chi tiết chưa có tên sản phẩm
+    @Query("SELECT DISTINCT d.productId FROM OrderDetail d " +
+            "WHERE d.productName IS NULL AND d.productId > :afterProductId " +
+            "ORDER BY d.productId")
+    List<Integer> findProductIdsMissingName(@Param("afterProductId") Integer afterProductId, Pageable pageable);
+
+    // Điền tên cho mọi dòng của 1 sản phẩm còn trống (không ghi đè tên đã lưu lúc đặt hàng)
+    @Modifying
+    @Transactional
+    @Query("UPDATE OrderDetail d SET d.productName = :productName " +
+            "WHERE d.productId = :productId AND d.productName IS NULL")
+    int fillProductName(@Param("productId") Integer productId, @Param("productName") String productName);
+}
@@ -4,44 +4,97 @@ import com.luxurydecor.order_service.entity.Order;
 import com.luxurydecor.order_service.enums.OrderStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import jakarta.persistence.QueryHint;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface OrderRepository extends JpaRepository<Order,String> {
+public interface OrderRepository extends JpaRepository<Order,String>, JpaSpecificationExecutor<Order> {
+    // Lấy kèm orderDetails trong cùng 1 câu SQL (tránh N+1)
+    @EntityGraph(attributePaths = "orderDetails")
     List<Order> findByUserIdOrderByOrderDateDesc(Integer userId);
+
+    // Phân trang lịch sử theo 2 bước: lấy 1 trang mã đơn (LIMIT/OFFSET trên index user_id, order_date)
+    // rồi fetch-join chi tiết của đúng các đơn đó (fetch-join + LIMIT trực tiếp sẽ phân trang trong bộ nhớ)
+    @Query("SELECT o.orderId FROM Order o WHERE o.userId = :userId ORDER BY o.orderDate DESC, o.orderId DESC")
+    List<String> findOrderIdsByUserId(@Param("userId") Integer userId, Pageable pageable);
+
+    // Trang tiếp theo theo keyset (orderDate, orderId) sau đơn cuối của trang trước, không OFFSET
+    // Điều kiện orderDate <= :orderDate đứng riêng để seek thẳng trên idx_orders_user_order_date
+    @Query("SELECT o.orderId FROM Order o WHERE o.userId = :userId AND o.orderDate <= :orderDate " +
+            "AND (o.orderDate < :orderDate OR o.orderId < :orderId) ORDER BY o.orderDate DESC, o.orderId DESC")
+    List<String> findOrderIdsByUserIdAfter(@Param("userId") Integer userId,
+                                           @Param("orderDate") LocalDateTime orderDate,
+                                           @Param("orderId") String orderId,
+                                           Pageable pageable);
+
+    @EntityGraph(attributePaths = "orderDetails")
+    List<Order> findByOrderIdIn(Collection<String> orderIds);
+
+    long countByUserId(Integer userId);
+
+    // (mã đơn, SĐT, ngày đặt) của toàn bộ đơn để dựng chỉ mục tìm kiếm, đọc dần theo lô (phải chạy trong transaction)
+    @Query("SELECT o.orderId, o.phoneNumber, o.orderDate FROM Order o ORDER BY o.orderDate, o.orderId")
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "5000"))
+    Stream<Object[]> streamSearchRows();
+
+    // Như trên nhưng chỉ các đơn đặt từ `from` trở về sau (đọc bù đơn của instance khác, seek trên idx_orders_order_date_id)
+    @Query("SELECT o.orderId, o.phoneNumber, o.orderDate FROM Order o WHERE o.orderDate >= :from ORDER BY o.orderDate, o.orderId")
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "5000"))
+    Stream<Object[]> streamSearchRowsSince(@Param("from") LocalDateTime from);
+
     // Tìm kiếm theo Mã đơn hoặc SĐT + Phân trang)
+    // Chỉ dùng khi chỉ mục tìm kiếm trong bộ nhớ chưa dựng xong (OrderSearchIndex)
     @Query("SELECT o FROM Order o WHERE " +
             "(:keyword IS NULL OR :keyword = '' OR " +
             "lower(o.orderId) LIKE lower(concat('%', :keyword, '%')) OR " +
             "o.phoneNumber LIKE %:keyword%)")
     Page<Order> findAllByKeyword(@Param("keyword") String keyword, Pageable pageable);
 
-    // Tính tổng tiền của các đơn có trạng thái cụ thể
-    // Dùng COALESCE để nếu null thì trả về 0
-    @Query("SELECT COALESCE(SUM(o.totalMoney), 0) FROM Order o WHERE o.status = :status")
-    Double sumRevenueByStatus(@Param("status") OrderStatus status);
+    // Chốt kết quả thanh toán đúng 1 lần: chỉ cập nhật khi đơn vẫn đang ở trạng thái chờ thanh toán
+    // Trả về 0 nếu đơn đã được chốt trước đó (đã PAID / đã hủy) -> bên gọi bỏ qua, không lật trạng thái
+    // Hủy đơn / admin đổi trạng thái cũng đi qua đây để không ghi đè kết quả của callback chạy song song
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Order o SET o.status = :toStatus, o.paymentStatus = :toPaymentStatus " +
+            "WHERE o.orderId = :orderId AND o.status = :fromStatus AND o.paymentStatus = :fromPaymentStatus")
+    int transitionPayment(@Param("orderId") String orderId,
+                          @Param("fromStatus") OrderStatus fromStatus,
+                          @Param("fromPaymentStatus") String fromPaymentStatus,
+                          @Param("toStatus") OrderStatus toStatus,
+                          @Param("toPaymentStatus") String toPaymentStatus);
+
+    // Tiền về sau khi đơn đã bị hủy / hết hạn -> đánh dấu cần hoàn tiền (không mở lại đơn)
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Order o SET o.paymentStatus = 'REFUND_REQUIRED' " +
+            "WHERE o.orderId = :orderId AND o.paymentStatus <> 'PAID'")
+    int markRefundRequired(@Param("orderId") String orderId);
 
-    // Đếm số đơn theo trạng thái
-    long countByStatus(OrderStatus status);
+    @Modifying
+    @Transactional
+    @Query("UPDATE Order o SET o.vnpCreateDate = :createDate WHERE o.orderId = :orderId")
+    int recordVnPayCreateDate(@Param("orderId") String orderId, @Param("createDate") String createDate);
+
+    // Đơn VNPAY vẫn chờ thanh toán, đặt trong khoảng [from, to], cũ nhất trước (cho bộ đối soát querydr)
+    @Query("SELECT o FROM Order o WHERE upper(o.paymentMethod) = 'VNPAY' " +
+            "AND o.status = :status AND o.paymentStatus = 'UNPAID' " +
+            "AND o.orderDate BETWEEN :from AND :to ORDER BY o.orderDate")
+    List<Order> findPendingVnPayOrders(@Param("status") OrderStatus status,
+                                       @Param("from") LocalDateTime from,
+                                       @Param("to") LocalDateTime to,
+                                       Pageable pageable);
 
     // Lấy 5 đơn mới nhất
     List<Order> findTop5ByOrderByOrderDateDesc();
-
-    // Lấy doanh thu theo tháng trong năm cụ thể
-    // EXTRACT(MONTH ...) của Postgres trả về số từ 1-12
-    @Query(value = """
-        SELECT CAST(EXTRACT(MONTH FROM order_date) AS INTEGER) as month, 
-               SUM(total_money) as revenue 
-        FROM order_schema.orders 
-        WHERE status = 'DELIVERED' 
-          AND CAST(EXTRACT(YEAR FROM order_date) AS INTEGER) = :year
-        GROUP BY month
-        ORDER BY month ASC
-    """, nativeQuery = true)
-    List<Object[]> sumRevenueByYear(@Param("year") int year);
 }
@@ -0,0 +1,46 @@
+package com.luxurydecor.order_service.repository;
+
+import com.luxurydecor.order_service.entity.OrderStats;
+import com.luxurydecor.order_service.enums.OrderStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OrderStatsRepository extends JpaRepository<OrderStats, OrderStatus> {
+    // Cộng dồn (có thể âm) vào dòng của 1 trạng thái, tạo dòng nếu chưa có
+    @Modifying
+    @Query(value = """
+        INSERT INTO order_schema.order_stats (status, order_count, total_money)
+        VALUES (:status, :countDelta, :moneyDelta)
+        ON CONFLICT (status) DO UPDATE
+        SET order_count = order_stats.order_count + EXCLUDED.order_count,
+            total_money = order_stats.total_money + EXCLUDED.total_money
+    """, nativeQuery = true)
+    void addDelta(@Param("status") String status,
+                  @Param("countDelta") long countDelta,
+                  @Param("moneyDelta") double moneyDelta);
+
+    // Chặn addDelta (ghi) tới hết transaction, vẫn cho đọc; gọi trước khi xóa / dựng lại bảng
+    // để delta của đơn đang xử lý không bị cộng lên snapshot đã tính đơn đó
+    @Modifying
+    @Query(value = "LOCK TABLE order_schema.order_stats IN EXCLUSIVE MODE", nativeQuery = true)
+    void lockForRebuild();
+
+    @Modifying
+    @Query(value = "DELETE FROM order_schema.order_stats", nativeQuery = true)
+    void deleteAllRows();
+
+    // Dựng lại từ bảng orders bằng 1 câu GROUP BY (dùng khi bảng tổng hợp còn trống / cần sửa)
+    @Modifying
+    @Query(value = """
+        INSERT INTO order_schema.order_stats (status, order_count, total_money)
+        SELECT status, COUNT(*), COALESCE(SUM(total_money), 0)
+        FROM order_schema.orders
+        WHERE status IS NOT NULL
+        GROUP BY status
+    """, nativeQuery = true)
+    void rebuildFromOrders();
+}
@@ -0,0 +1,35 @@
+package com.luxurydecor.order_service.repository;
+
+import com.luxurydecor.order_service.entity.PaymentCallback;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface PaymentCallbackRepository extends JpaRepository<PaymentCallback, Long> {
+    // Giành quyền xử lý callback: trả về 1 nếu là lần đầu, 0 nếu đã có (callback trùng)
+    // Callback trùng đến cùng lúc sẽ chờ transaction đầu tiên commit rồi mới nhận 0
+    @Modifying
+    @Query(value = """
+        INSERT INTO order_schema.payment_callbacks (txn_ref, transaction_no, response_code, received_at)
+        VALUES (:txnRef, :transactionNo, :responseCode, now())
+        ON CONFLICT (txn_ref, transaction_no) DO NOTHING
+    """, nativeQuery = true)
+    int claim(@Param("txnRef") String txnRef,
+              @Param("transactionNo") String transactionNo,
+              @Param("responseCode") String responseCode);
+
+    Optional<PaymentCallback> findByTxnRefAndTransactionNo(String txnRef, String transactionNo);
+
+    @Modifying
+    @Query("UPDATE PaymentCallback c SET c.resultStatus = :resultStatus, c.resultMessage = :resultMessage " +
+            "WHERE c.txnRef = :txnRef AND c.transactionNo = :transactionNo")
+    void recordResult(@Param("txnRef") String txnRef,
+                      @Param("transactionNo") String transactionNo,
+                      @Param("resultStatus") String resultStatus,
+                      @Param("resultMessage") String resultMessage);
+}
@@ -0,0 +1,431 @@
+package com.luxurydecor.order_service.search;
+
+import com.luxurydecor.order_service.entity.Order;
+import com.luxurydecor.order_service.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+// Chỉ mục trigram trong bộ nhớ cho ô tìm kiếm đơn hàng của admin (mã đơn / SĐT)
+// - Mỗi đơn được cắt thành các cụm 3 ký tự; từ khóa >= 3 ký tự chỉ cần giao các danh sách cụm rồi kiểm tra lại
+// - Kết quả giống hệt LIKE '%kw%' (mã đơn không phân biệt hoa thường), thứ tự đơn mới nhất trước
+// - Đơn mới được thêm ngay sau khi commit; trong lúc đang dựng chỉ mục thì trả về null để bên gọi dùng DB
+// - Đơn đặt ở instance khác được đọc bù định kỳ từ DB (các đơn có orderDate từ mốc đã đọc trở về sau)
+@Component
+@RequiredArgsConstructor
+public class OrderSearchIndex {
+    private static final int GRAM = 3;
+    private static final char FIELD_SEPARATOR = '\n';
+
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    // orderDate được gán trước khi commit -> đơn của instance khác có thể commit sau 1 đơn mới hơn
+    // Đọc bù lùi lại 1 khoảng trước mốc để không sót các đơn này
+    @Value("${order.search-index.catch-up-overlap-seconds:300}")
+    private long catchUpOverlapSeconds;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Segment segment = new Segment();
+    private boolean ready = false;
+    // orderDate lớn nhất đã đọc từ DB (lúc dựng hoặc đọc bù), null nếu chưa có đơn nào
+    private LocalDateTime highWater = null;
+    // Đơn được commit trong lúc đang dựng chỉ mục, thêm vào sau khi dựng xong
+    private List<Object[]> pending = new ArrayList<>();
+
+    public record SearchPage(List<String> orderIds, long total) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        Thread.ofVirtual().name("order-search-index").start(() -> {
+            try {
+                rebuild();
+            } catch (Exception e) {
+                System.out.println("Dựng chỉ mục tìm kiếm đơn hàng bị lỗi, tạm dùng truy vấn DB: " + e.getMessage());
+            }
+        });
+    }
+
+    // Đọc (mã đơn, SĐT, ngày đặt) của toàn bộ đơn theo dạng stream, không load entity
+    public void rebuild() {
+        transactionTemplate.executeWithoutResult(status -> rebuildFrom(orderRepository::streamSearchRows));
+    }
+
+    // Dựng chỉ mục mới từ các dòng (mã đơn, SĐT, ngày đặt) rồi thay cho chỉ mục cũ
+    public void rebuildFrom(Supplier<Stream<Object[]>> source) {
+        // Chuyển sang chế độ gom đơn mới TRƯỚC khi mở stream để không sót đơn nào
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Segment built = new Segment();
+        LocalDateTime[] newest = new LocalDateTime[1];
+        try (Stream<Object[]> rows = source.get()) {
+            rows.forEach(row -> {
+                built.add((String) row[0], (String) row[1], (LocalDateTime) row[2]);
+                newest[0] = later(newest[0], (LocalDateTime) row[2]);
+            });
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (Object[] row : pending) {
+                // Đơn commit đúng lúc stream đang chạy có thể đã được đọc -> bỏ qua nếu đã có
+                if (!built.contains((String) row[0])) {
+                    built.add((String) row[0], (String) row[1], (LocalDateTime) row[2]);
+                }
+            }
+            pending = new ArrayList<>();
+            segment = built;
+            highWater = newest[0];
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        System.out.println("Đã dựng chỉ mục tìm kiếm cho " + built.size + " đơn hàng");
+    }
+
+    // Đọc bù các đơn được đặt ở instance khác kể từ lần đọc trước
+    @Scheduled(fixedDelayString = "${order.search-index.catch-up-interval-ms:10000}")
+    public void catchUp() {
+        if (!isReady()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> catchUpFrom(orderRepository::streamSearchRowsSince));
+        } catch (Exception e) {
+            System.out.println("Đọc bù chỉ mục tìm kiếm đơn hàng bị lỗi: " + e.getMessage());
+        }
+    }
+
+    // Thêm các dòng (mã đơn, SĐT, ngày đặt) có orderDate >= (mốc - khoảng lùi), bỏ qua đơn đã có
+    public void catchUpFrom(Function<LocalDateTime, Stream<Object[]>> source) {
+        LocalDateTime from;
+        lock.readLock().lock();
+        try {
+            if (!ready) {
+                return; // Đang dựng lại từ đầu -> lần dựng đó sẽ đọc đủ
+            }
+            from = highWater == null ? LocalDateTime.of(1970, 1, 1, 0, 0) : highWater.minusSeconds(catchUpOverlapSeconds);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Object[]> rows;
+        try (Stream<Object[]> stream = source.apply(from)) {
+            rows = stream.toList();
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (!ready) {
+                return;
+            }
+            for (Object[] row : rows) {
+                if (!segment.contains((String) row[0])) {
+                    segment.add((String) row[0], (String) row[1], (LocalDateTime) row[2]);
+                }
+                highWater = later(highWater, (LocalDateTime) row[2]);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Gọi sau khi đơn mới đã được commit
+    public void add(Order order) {
+        add(order.getOrderId(), order.getPhoneNumber(), order.getOrderDate());
+    }
+
+    public void add(String orderId, String phoneNumber, LocalDateTime orderDate) {
+        lock.writeLock().lock();
+        try {
+            if (ready) {
+                // Lượt đọc bù có thể đã thêm đơn này trước khi afterCommit chạy
+                if (!segment.contains(orderId)) {
+                    segment.add(orderId, phoneNumber, orderDate);
+                }
+            } else {
+                pending.add(new Object[]{orderId, phoneNumber, orderDate});
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 1 trang kết quả theo offset (null nếu chỉ mục chưa sẵn sàng)
+    public SearchPage search(String keyword, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            if (!ready) {
+                return null;
+            }
+            int[] matches = segment.matchNewestFirst(normalize(keyword));
+            List<String> orderIds = new ArrayList<>();
+            for (int i = Math.max(offset, 0); i < matches.length && orderIds.size() < limit; i++) {
+                orderIds.add(segment.orderIds[matches[i]]);
+            }
+            return new SearchPage(orderIds, matches.length);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 1 trang kết quả theo keyset: các đơn đứng sau (afterDate, afterId) theo thứ tự mới nhất trước
+    public SearchPage searchAfter(String keyword, LocalDateTime afterDate, String afterId, int limit) {
+        lock.readLock().lock();
+        try {
+            if (!ready) {
+                return null;
+            }
+            int[] matches = segment.matchNewestFirst(normalize(keyword));
+            int start = 0;
+            if (afterDate != null) {
+                long afterStamp = stamp(afterDate);
+                // Danh sách đã sắp giảm dần -> tìm nhị phân vị trí đầu tiên nhỏ hơn con trỏ
+                int low = 0;
+                int high = matches.length;
+                while (low < high) {
+                    int mid = (low + high) >>> 1;
+                    if (segment.compare(matches[mid], afterStamp, afterId) < 0) {
+                        high = mid;
+                    } else {
+                        low = mid + 1;
+                    }
+                }
+                start = low;
+            }
+            List<String> orderIds = new ArrayList<>();
+            for (int i = start; i < matches.length && orderIds.size() < limit; i++) {
+                orderIds.add(segment.orderIds[matches[i]]);
+            }
+            return new SearchPage(orderIds, matches.length);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return ready;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Không trim: giữ đúng ngữ nghĩa LIKE '%kw%' của truy vấn DB
+    private static String normalize(String keyword) {
+        return keyword == null ? "" : keyword.toLowerCase(Locale.ROOT);
+    }
+
+    private static LocalDateTime later(LocalDateTime current, LocalDateTime candidate) {
+        if (candidate == null) {
+            return current;
+        }
+        return current == null || candidate.isAfter(current) ? candidate : current;
+    }
+
+    // Thời điểm tính tới micro giây (đúng độ chính xác timestamp của Postgres)
+    private static long stamp(LocalDateTime time) {
+        if (time == null) {
+            return Long.MIN_VALUE;
+        }
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + time.getNano() / 1_000;
+    }
+
+    // Gộp 3 ký tự (mỗi ký tự 16 bit) thành 1 khóa long
+    private static long gram(String text, int from) {
+        return ((long) text.charAt(from) << 32) | ((long) text.charAt(from + 1) << 16) | text.charAt(from + 2);
+    }
+
+    // Dữ liệu chỉ mục: mảng song song theo số thứ tự đơn + danh sách đơn (tăng dần) của từng trigram
+    private static final class Segment {
+        private String[] orderIds = new String[1024];
+        private String[] keys = new String[1024]; // "mã đơn thường\nSĐT", dùng để kiểm tra lại
+        private long[] stamps = new long[1024];
+        private int size = 0;
+        // true khi đơn được thêm theo đúng thứ tự (ngày, mã) tăng dần -> đảo ngược là có thứ tự mới nhất trước
+        private boolean ordered = true;
+        // Thứ tự mới nhất trước của toàn bộ đơn khi !ordered, tính 1 lần và bỏ đi khi có đơn mới
+        private volatile Ranking ranking;
+        private final Map<Long, IntList> postings = new HashMap<>();
+
+        // order: vị trí -> đơn, rank: đơn -> vị trí
+        private record Ranking(int[] order, int[] rank) {
+        }
+
+        void add(String orderId, String phoneNumber, LocalDateTime orderDate) {
+            if (size == orderIds.length) {
+                int capacity = size * 2;
+                orderIds = Arrays.copyOf(orderIds, capacity);
+                keys = Arrays.copyOf(keys, capacity);
+                stamps = Arrays.copyOf(stamps, capacity);
+            }
+            String key = orderId.toLowerCase(Locale.ROOT) + FIELD_SEPARATOR + (phoneNumber == null ? "" : phoneNumber);
+            long orderStamp = stamp(orderDate);
+            if (size > 0 && compare(size - 1, orderStamp, orderId) > 0) {
+                ordered = false;
+            }
+
+            ranking = null;
+            int doc = size++;
+            orderIds[doc] = orderId;
+            keys[doc] = key;
+            stamps[doc] = orderStamp;
+
+            int separator = orderId.length();
+            for (int i = 0; i + GRAM <= key.length(); i++) {
+                if (i <= separator && separator < i + GRAM) {
+                    continue; // Không tạo trigram vắt qua 2 trường
+                }
+                IntList docs = postings.computeIfAbsent(gram(key, i), g -> new IntList());
+                // Trigram lặp lại trong cùng 1 đơn chỉ ghi 1 lần
+                if (docs.size == 0 || docs.values[docs.size - 1] != doc) {
+                    docs.add(doc);
+                }
+            }
+        }
+
+        boolean contains(String orderId) {
+            String prefix = orderId.toLowerCase(Locale.ROOT) + FIELD_SEPARATOR;
+            for (int doc : match(orderId.toLowerCase(Locale.ROOT))) {
+                if (keys[doc].startsWith(prefix)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // So sánh đơn doc với vị trí (stamp, orderId): âm nếu doc cũ hơn
+        int compare(int doc, long stamp, String orderId) {
+            int byDate = Long.compare(stamps[doc], stamp);
+            return byDate != 0 ? byDate : orderIds[doc].compareTo(orderId);
+        }
+
+        int[] matchNewestFirst(String keyword) {
+            int[] matches = match(keyword);
+            if (ordered) {
+                for (int i = 0, j = matches.length - 1; i < j; i++, j--) {
+                    int tmp = matches[i];
+                    matches[i] = matches[j];
+                    matches[j] = tmp;
+                }
+                return matches;
+            }
+            // Đơn đọc bù / commit lệch thứ tự: sắp theo hạng đã tính sẵn (sort mảng int), không sort object mỗi lần tìm
+            Ranking current = ranking;
+            if (current == null) {
+                int[] order = IntStream.range(0, size).boxed()
+                        .sorted(Comparator.<Integer>comparingLong(doc -> stamps[doc])
+                                .thenComparing(doc -> orderIds[doc])
+                                .reversed())
+                        .mapToInt(Integer::intValue)
+                        .toArray();
+                int[] rank = new int[size];
+                for (int i = 0; i < order.length; i++) {
+                    rank[order[i]] = i;
+                }
+                current = new Ranking(order, rank);
+                ranking = current;
+            }
+            int[] ranks = new int[matches.length];
+            for (int i = 0; i < matches.length; i++) {
+                ranks[i] = current.rank()[matches[i]];
+            }
+            Arrays.sort(ranks);
+            for (int i = 0; i < ranks.length; i++) {
+                matches[i] = current.order()[ranks[i]];
+            }
+            return matches;
+        }
+
+        // Các đơn có mã hoặc SĐT chứa keyword, theo số thứ tự tăng dần
+        int[] match(String keyword) {
+            IntList result = new IntList();
+            if (keyword.isEmpty()) {
+                for (int doc = 0; doc < size; doc++) {
+                    result.add(doc);
+                }
+                return result.toArray();
+            }
+            if (keyword.length() < GRAM) {
+                // Từ khóa quá ngắn để tách trigram -> duyệt tuần tự trên mảng trong bộ nhớ
+                for (int doc = 0; doc < size; doc++) {
+                    if (keys[doc].contains(keyword)) {
+                        result.add(doc);
+                    }
+                }
+                return result.toArray();
+            }
+
+            List<IntList> lists = new ArrayList<>();
+            for (int i = 0; i + GRAM <= keyword.length(); i++) {
+                IntList docs = postings.get(gram(keyword, i));
+                if (docs == null) {
+                    return new int[0];
+                }
+                lists.add(docs);
+            }
+            // Duyệt danh sách ngắn nhất, tra các danh sách còn lại bằng tìm nhị phân
+            lists.sort(Comparator.comparingInt(list -> list.size));
+            IntList shortest = lists.get(0);
+            for (int i = 0; i < shortest.size; i++) {
+                int doc = shortest.values[i];
+                boolean inAll = true;
+                for (int l = 1; l < lists.size() && inAll; l++) {
+                    inAll = Arrays.binarySearch(lists.get(l).values, 0, lists.get(l).size, doc) >= 0;
+                }
+                // Có đủ trigram chưa chắc đã chứa cả chuỗi -> kiểm tra lại
+                if (inAll && keys[doc].contains(keyword)) {
+                    result.add(doc);
+                }
+            }
+            return result.toArray();
+        }
+    }
+
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size = 0;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package com.luxurydecor.order_service.service;
 
-import com.luxurydecor.order_service.client.ProductClient;
 import com.luxurydecor.order_service.dto.request.AddToCartRequest;
 import com.luxurydecor.order_service.dto.response.CartItemResponse;
 import com.luxurydecor.order_service.dto.response.CartResponse;
@@ -14,6 +13,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -21,7 +21,7 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class CartService {
     private final CartRepository cartRepository;
-    private final ProductClient productClient;
+    private final ProductLookupService productLookupService;
 
     // === 1. THÊM VÀO GIỎ HÀNG ===
     @Transactional
@@ -85,19 +85,13 @@ public class CartService {
         // Tính tổng số lượng item
         int totalItems = cart.getCartItems().stream().mapToInt(CartItem::getQuantity).sum();
 
+        // Lấy thông tin sản phẩm song song (mỗi productId gọi 1 lần)
+        Map<Integer, ExternalProductResponse> products = productLookupService.fetchProducts(
+                cart.getCartItems().stream().map(CartItem::getProductId).toList());
+
         List<CartItemResponse> items = cart.getCartItems().stream()
                 .map(item -> {
-                    // call product-service to get infor
-                    ExternalProductResponse product = null;
-                    try {
-                        // Gọi Feign Client
-                        product = productClient.getProductById(item.getProductId());
-                    } catch (Exception e) {
-                        product = new ExternalProductResponse();
-                        product.setProductName("Sản phẩm lỗi hoặc không tồn tại");
-                        product.setPrice(0.0);
-                        product.setStockQuantity(0);
-                    }
+                    ExternalProductResponse product = products.get(item.getProductId());
 
                     return CartItemResponse.builder()
                             .cartItemId(item.getCartItemId())
@@ -106,7 +100,9 @@ public class CartService {
                             .productName(product.getProductName())
                             .productPrice(product.getPrice())
                             .productImage(product.getImage())
-                            .stockQuantity(product.getStockQuantity())
+                            .stockQuantity(product.getAvailableQuantity() != null
+                                    ? product.getAvailableQuantity()
+                                    : product.getStockQuantity())
                             .build();
                 })
                 .collect(Collectors.toList());
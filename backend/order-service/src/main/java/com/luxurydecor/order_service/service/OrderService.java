@@ -1,36 +1,51 @@
 package com.luxurydecor.order_service.service;
 
-import com.luxurydecor.order_service.client.ProductClient;
+import com.luxurydecor.order_service.client.ProductClientFallbackFactory;
 import com.luxurydecor.order_service.dto.request.PlaceOrderRequest;
-import com.luxurydecor.order_service.dto.request.ProductQuantityRequest;
 import com.luxurydecor.order_service.dto.response.*;
 import com.luxurydecor.order_service.entity.Cart;
 import com.luxurydecor.order_service.entity.CartItem;
+import com.luxurydecor.order_service.entity.DailyRevenue;
 import com.luxurydecor.order_service.entity.Order;
 import com.luxurydecor.order_service.entity.OrderDetail;
 import com.luxurydecor.order_service.enums.OrderStatus;
+import com.luxurydecor.order_service.pagination.KeysetCursor;
 import com.luxurydecor.order_service.repository.CartRepository;
 import com.luxurydecor.order_service.repository.OrderRepository;
+import com.luxurydecor.order_service.search.OrderSearchIndex;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class OrderService {
+    // Số bản ghi tối đa mỗi trang (danh sách / cuộn / stream)
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final OrderRepository orderRepository;
     private final CartRepository cartRepository;
-    private final ProductClient productClient;
+    private final ProductLookupService productLookupService;
+    private final OrderStockService orderStockService;
+    private final OrderStatsService orderStatsService;
+    private final RevenueRollupService revenueRollupService;
+    private final OrderSearchIndex orderSearchIndex;
 
     // === CHECKOUT ===
     @Transactional
@@ -71,24 +86,27 @@ public class OrderService {
                 .build();
 
         // Chuyển CartItem sang OrderDetail
-        List<ProductQuantityRequest> reduceStockRequests = new ArrayList<>();
         double totalMoney = 0;
 
         for (CartItem item : itemsToBuy) {
-            // Gọi product-service
-            // Nếu sản phẩm không tồn tại, Feign sẽ ném lỗi 404 (cần try-catch nếu muốn handle mượt hơn)
-            ExternalProductResponse product = productClient.getProductById(item.getProductId());
-
-            reduceStockRequests.add(ProductQuantityRequest.builder()
-                    .productId(item.getProductId())
-                    .quantity(item.getQuantity())
-                    .build());
+            // Gọi product-service, lỗi -> exception -> rollback, đơn không được lưu
+            ExternalProductResponse product;
+            try {
+                product = productLookupService.getProduct(item.getProductId());
+            } catch (RuntimeException e) {
+                if (ProductClientFallbackFactory.isUnavailable(e)) {
+                    // Product-service chậm / mạch đang mở: không đặt đơn với giá đoán mò
+                    throw e;
+                }
+                throw new RuntimeException("Sản phẩm " + item.getProductId() + " không tồn tại hoặc đã ngừng bán");
+            }
 
             double itemTotal = product.getPrice() * item.getQuantity();
 
             OrderDetail detail = OrderDetail.builder()
                     .order(order)
                     .productId(item.getProductId())
+                    .productName(product.getProductName()) // Lưu tên tại thời điểm mua
                     .quantity(item.getQuantity())
                     .price(product.getPrice()) // Lưu giá tại thời điểm mua
                     .totalPrice(itemTotal)
@@ -100,9 +118,29 @@ public class OrderService {
         }
 
         order.setTotalMoney(totalMoney);
-        productClient.reduceStock(reduceStockRequests);
-        // Lưu Order
+        // Lưu Order trước để có mã đơn, sau đó giữ hàng theo mã đơn
+        // Giữ hàng lỗi (hết hàng) -> exception -> rollback, đơn không được lưu
         Order savedOrder = orderRepository.save(order);
+        // Giữ hàng là lệnh HTTP, không rollback theo transaction này -> đơn bị rollback thì trả phần đã giữ
+        // (đăng ký trước khi gọi: product-service có thể đã giữ hàng dù lệnh gọi bị timeout)
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    orderStockService.cancelReservation(savedOrder);
+                }
+            }
+        });
+        orderStockService.reserve(savedOrder);
+        orderStatsService.recordCreated(savedOrder);
+
+        // Đưa vào chỉ mục tìm kiếm của admin sau khi đơn đã được commit
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                orderSearchIndex.add(savedOrder);
+            }
+        });
 
         cart.getCartItems().removeIf(item -> request.getSelectedProductIds().contains(item.getProductId()));
         cartRepository.save(cart);
@@ -113,7 +151,61 @@ public class OrderService {
     // === XEM LỊCH SỬ ĐƠN HÀNG ===
     public List<OrderResponse> getMyOrders(Integer userId) {
         List<Order> orders = orderRepository.findByUserIdOrderByOrderDateDesc(userId);
-        return orders.stream().map(this::mapToOrderResponse).collect(Collectors.toList());
+        return mapToOrderResponses(orders);
+    }
+
+    // Lịch sử đơn hàng có phân trang: 1 câu lấy mã đơn, 1 câu fetch-join chi tiết, 1 lần gọi product-service
+    public PageResponse<OrderResponse> getMyOrdersPage(Integer userId, int page, int size) {
+        page = Math.max(page, 0);
+        size = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        long total = orderRepository.countByUserId(userId);
+        List<String> orderIds = orderRepository.findOrderIdsByUserId(userId, PageRequest.of(page, size));
+        List<OrderResponse> content = mapToOrderResponses(findOrdersInOrder(orderIds));
+
+        return PageResponse.<OrderResponse>builder()
+                .content(content)
+                .page(page)
+                .size(size)
+                .totalElements(total)
+                .totalPages((int) ((total + size - 1) / size))
+                .build();
+    }
+
+    // Đọc lần lượt từng trang lịch sử và đẩy từng đơn ra ngay (dùng cho stream NDJSON)
+    // Client nhận được các đơn đầu tiên trước khi các trang sau được load
+    // Trang sau tìm tiếp từ (orderDate, orderId) của đơn cuối trang trước -> không quét lại các trang đã đọc
+    public void streamMyOrders(Integer userId, int pageSize, Consumer<OrderResponse> sink) {
+        pageSize = Math.min(Math.max(pageSize, 1), MAX_PAGE_SIZE);
+        KeysetCursor position = null;
+        List<String> orderIds;
+        do {
+            orderIds = position == null
+                    ? orderRepository.findOrderIdsByUserId(userId, PageRequest.of(0, pageSize))
+                    : orderRepository.findOrderIdsByUserIdAfter(userId, position.orderDate(), position.orderId(),
+                    PageRequest.of(0, pageSize));
+            List<Order> orders = findOrdersInOrder(orderIds);
+            if (orders.isEmpty()) {
+                return;
+            }
+            mapToOrderResponses(orders).forEach(sink);
+            Order last = orders.get(orders.size() - 1);
+            position = new KeysetCursor(last.getOrderDate(), last.getOrderId());
+        } while (orderIds.size() == pageSize);
+    }
+
+    // Fetch-join chi tiết của các đơn theo mã, giữ nguyên thứ tự của danh sách mã
+    private List<Order> findOrdersInOrder(List<String> orderIds) {
+        if (orderIds.isEmpty()) {
+            return List.of();
+        }
+
+        // IN (...) không giữ thứ tự -> sắp lại theo thứ tự của trang mã đơn
+        Map<String, Order> byId = orderRepository.findByOrderIdIn(orderIds).stream()
+                .collect(Collectors.toMap(Order::getOrderId, o -> o));
+        return orderIds.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .toList();
     }
 
     // === CHI TIẾT ĐƠN HÀNG ===
@@ -124,17 +216,108 @@ public class OrderService {
         return mapToOrderResponse(order);
     }
 
+    // === LẤY ĐƠN HÀNG KIỂU CUỘN VÔ HẠN (keyset) ===
+    // Không dùng OFFSET, không COUNT trừ khi withTotal = true
+    // Thứ tự: đơn mới nhất trước, orderId làm khóa phụ khi trùng orderDate
+    public CursorPageResponse<OrderResponse> scrollOrders(String cursor, int size, String keyword, boolean withTotal) {
+        size = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        KeysetCursor position = (cursor != null && !cursor.isBlank()) ? KeysetCursor.decode(cursor) : null;
+
+        // Có từ khóa -> lấy mã đơn từ chỉ mục trigram (null khi chỉ mục chưa dựng xong -> dùng DB)
+        OrderSearchIndex.SearchPage hit = hasKeyword(keyword)
+                ? orderSearchIndex.searchAfter(keyword,
+                        position == null ? null : position.orderDate(),
+                        position == null ? null : position.orderId(),
+                        size + 1)
+                : null;
+
+        List<Order> rows;
+        Long total = null;
+        if (hit != null) {
+            rows = findOrdersInOrder(hit.orderIds());
+            if (withTotal) {
+                total = hit.total();
+            }
+        } else {
+            Specification<Order> filter = keywordFilter(keyword);
+            Specification<Order> spec = filter;
+            if (position != null) {
+                // orderDate <= cursor là điều kiện thừa về logic nhưng cho Postgres 1 khoảng để seek trên index
+                // (order_date, order_id), nhánh OR chỉ còn lọc các đơn trùng orderDate
+                spec = filter.and((root, query, cb) -> cb.and(
+                        cb.lessThanOrEqualTo(root.get("orderDate"), position.orderDate()),
+                        cb.or(
+                                cb.lessThan(root.get("orderDate"), position.orderDate()),
+                                cb.lessThan(root.get("orderId"), position.orderId()))));
+            }
+
+            // Lấy dư 1 đơn để biết còn trang sau hay không
+            rows = orderRepository.findBy(spec, q -> q
+                    .sortBy(Sort.by("orderDate").descending().and(Sort.by("orderId").descending()))
+                    .limit(size + 1)
+                    .all());
+            if (withTotal) {
+                total = orderRepository.count(filter);
+            }
+        }
+
+        boolean hasNext = rows.size() > size;
+        List<Order> content = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasNext) {
+            Order last = content.get(content.size() - 1);
+            nextCursor = new KeysetCursor(last.getOrderDate(), last.getOrderId()).encode();
+        }
+
+        return CursorPageResponse.<OrderResponse>builder()
+                .content(mapToOrderResponses(content))
+                .nextCursor(nextCursor)
+                .hasNext(hasNext)
+                .totalElements(total)
+                .build();
+    }
+
+    private static boolean hasKeyword(String keyword) {
+        return keyword != null && !keyword.isBlank();
+    }
+
+    // Cùng điều kiện với findAllByKeyword: mã đơn (không phân biệt hoa thường) hoặc SĐT
+    private Specification<Order> keywordFilter(String keyword) {
+        return (root, query, cb) -> {
+            if (keyword == null || keyword.isEmpty()) {
+                return cb.conjunction();
+            }
+            String pattern = "%" + keyword + "%";
+            return cb.or(
+                    cb.like(cb.lower(root.get("orderId")), pattern.toLowerCase()),
+                    cb.like(root.get("phoneNumber"), pattern));
+        };
+    }
+
     // === LẤY TẤT CẢ ĐƠN HÀNG ===
     public PageResponse<OrderResponse> getAllOrders(int page, int size, String keyword) {
+        // Tìm theo từ khóa: lấy 1 trang mã đơn từ chỉ mục trigram, không quét LIKE '%kw%' + COUNT trên DB
+        OrderSearchIndex.SearchPage hit = hasKeyword(keyword)
+                ? orderSearchIndex.search(keyword, page * size, size)
+                : null;
+        if (hit != null) {
+            return PageResponse.<OrderResponse>builder()
+                    .content(mapToOrderResponses(findOrdersInOrder(hit.orderIds())))
+                    .page(page)
+                    .size(size)
+                    .totalElements(hit.total())
+                    .totalPages(size == 0 ? 0 : (int) ((hit.total() + size - 1) / size))
+                    .build();
+        }
+
         // Sắp xếp đơn mới nhất lên đầu
-        Pageable pageable = PageRequest.of(page, size, Sort.by("orderDate").descending());
+        // orderId làm khóa phụ như chỉ mục tìm kiếm -> 2 đường cho cùng thứ tự
+        Pageable pageable = PageRequest.of(page, size, Sort.by("orderDate").descending().and(Sort.by("orderId").descending()));
 
         Page<Order> orderPage = orderRepository.findAllByKeyword(keyword, pageable);
 
         // Convert Page<Order> sang List<OrderResponse>
-        List<OrderResponse> responseList = orderPage.getContent().stream()
-                .map(this::mapToOrderResponse) // Tái sử dụng hàm map cũ
-                .collect(Collectors.toList());
+        List<OrderResponse> responseList = mapToOrderResponses(orderPage.getContent());
 
         return PageResponse.<OrderResponse>builder()
                 .content(responseList)
@@ -146,41 +329,44 @@ public class OrderService {
     }
 
     // === CẬP NHẬT TRẠNG THÁI ĐƠN HÀNG ===
+    // Đổi trạng thái bằng câu UPDATE có điều kiện (giống callback thanh toán): đơn vừa bị callback / người khác
+    // đổi trạng thái thì không ghi đè, không đụng kho và không cập nhật thống kê 2 lần
     @Transactional
     public OrderResponse updateOrderStatus(String orderId, String newStatus) {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new RuntimeException("Không tìm thấy đơn hàng: " + orderId));
 
-        if ("CANCELLED".equals(newStatus) && !OrderStatus.CANCELLED.equals(order.getStatus())) {
-
-            // 1. Tạo danh sách sản phẩm cần hoàn
-            List<ProductQuantityRequest> restoreRequests = order.getOrderDetails().stream()
-                    .map(detail -> ProductQuantityRequest.builder()
-                            .productId(detail.getProductId())
-                            .quantity(detail.getQuantity())
-                            .build())
-                    .collect(Collectors.toList());
-
-            // 2. Gọi Product Service để hoàn kho
-            productClient.restoreStock(restoreRequests);
-        }
-
+        OrderStatus statusEnum;
         try {
             // Chuyển String sang Enum (Validate luôn nếu sai tên status)
-            OrderStatus statusEnum = OrderStatus.valueOf(newStatus.toUpperCase());
-            order.setStatus(statusEnum);
-
-            // Logic phụ: Nếu trạng thái là DELIVERED (Đã giao) -> Cập nhật PaymentStatus thành PAID
-            if (statusEnum == OrderStatus.DELIVERED) {
-                order.setPaymentStatus("PAID");
-                order.setShippingDate(java.time.LocalDateTime.now());
-            }
-
+            statusEnum = OrderStatus.valueOf(newStatus.toUpperCase());
         } catch (IllegalArgumentException e) {
             throw new RuntimeException("Trạng thái không hợp lệ: " + newStatus);
         }
 
-        return mapToOrderResponse(orderRepository.save(order));
+        OrderStatus oldStatus = order.getStatus();
+        if (statusEnum == oldStatus) {
+            return mapToOrderResponse(order);
+        }
+        String oldPaymentStatus = order.getPaymentStatus();
+        // Logic phụ: Nếu trạng thái là DELIVERED (Đã giao) -> Cập nhật PaymentStatus thành PAID
+        String newPaymentStatus = statusEnum == OrderStatus.DELIVERED ? "PAID" : oldPaymentStatus;
+        transition(order, oldStatus, oldPaymentStatus, statusEnum, newPaymentStatus);
+
+        if (statusEnum == OrderStatus.CANCELLED) {
+            // Trả lại hàng đang giữ (hoặc hoàn kho nếu đã chốt)
+            orderStockService.release(order);
+        } else if (statusEnum == OrderStatus.CONFIRMED || statusEnum == OrderStatus.SHIPPING
+                || statusEnum == OrderStatus.DELIVERED) {
+            // Đơn đã được xác nhận / đang giao / đã giao -> chốt phần hàng đang giữ
+            orderStockService.commit(order);
+        }
+        if (statusEnum == OrderStatus.DELIVERED) {
+            order.setShippingDate(java.time.LocalDateTime.now());
+        }
+
+        orderStatsService.recordTransition(order, oldStatus, statusEnum);
+        return mapToOrderResponse(order);
     }
 
     // Hủy đơn phía user
@@ -198,53 +384,43 @@ public class OrderService {
         if (order.getStatus() != OrderStatus.PENDING) {
             throw new RuntimeException("Chỉ có thể hủy đơn hàng khi đang chờ xử lý");
         }
+        // Callback thanh toán chạy song song có thể vừa chốt đơn -> UPDATE có điều kiện quyết định ai thắng
+        transition(order, OrderStatus.PENDING, order.getPaymentStatus(),
+                OrderStatus.CANCELLED, order.getPaymentStatus());
 
-        // Logic hoàn kho (Giống hệt bên trên)
-        List<ProductQuantityRequest> restoreRequests = order.getOrderDetails().stream()
-                .map(detail -> ProductQuantityRequest.builder()
-                        .productId(detail.getProductId())
-                        .quantity(detail.getQuantity())
-                        .build())
-                .collect(Collectors.toList());
-        productClient.restoreStock(restoreRequests);
+        // Trả lại hàng đang giữ (Giống hệt bên trên)
+        orderStockService.release(order);
 
-        order.setStatus(OrderStatus.CANCELLED);
-        return mapToOrderResponse(orderRepository.save(order));
+        orderStatsService.recordTransition(order, OrderStatus.PENDING, OrderStatus.CANCELLED);
+        return mapToOrderResponse(order);
     }
 
-    // Thống kê
+    // Chuyển trạng thái đơn nếu đơn vẫn đang ở (fromStatus, fromPaymentStatus), không thì báo lỗi
+    // Entity được gán giá trị mới giống hệt DB (dòng đã bị khóa bởi câu UPDATE), không save() từ bản đọc cũ
+    private void transition(Order order, OrderStatus fromStatus, String fromPaymentStatus,
+                            OrderStatus toStatus, String toPaymentStatus) {
+        int changed = orderRepository.transitionPayment(order.getOrderId(), fromStatus, fromPaymentStatus,
+                toStatus, toPaymentStatus);
+        if (changed == 0) {
+            throw new RuntimeException("Đơn hàng vừa được cập nhật bởi thao tác khác, vui lòng tải lại");
+        }
+        order.setStatus(toStatus);
+        order.setPaymentStatus(toPaymentStatus);
+    }
+
+    // Thống kê (đọc từ bảng tổng hợp order_stats, không đếm trên bảng orders)
     public OrderStatsResponse getOrderStats() {
-        // Tính doanh thu: Chỉ tính đơn đã Giao thành công (DELIVERED hoặc COMPLETED)
-        Double revenue = orderRepository.sumRevenueByStatus(OrderStatus.DELIVERED);
-
-        // Đếm các loại đơn
-        long total = orderRepository.count();
-        long pending = orderRepository.countByStatus(OrderStatus.PENDING);
-        long shipping = orderRepository.countByStatus(OrderStatus.SHIPPING);
-        long delivered = orderRepository.countByStatus(OrderStatus.DELIVERED);
-        long cancelled = orderRepository.countByStatus(OrderStatus.CANCELLED);
-
-        // Đóng gói vào DTO
-        return OrderStatsResponse.builder()
-                .totalRevenue(revenue)
-                .totalOrders(total)
-                .pendingOrders(pending)
-                .shippingOrders(shipping)
-                .successOrders(delivered)
-                .cancelledOrders(cancelled)
-                .build();
+        return orderStatsService.getOrderStats();
+    }
+
+    public OrderStatsResponse rebuildOrderStats() {
+        orderStatsService.rebuild();
+        return orderStatsService.getOrderStats();
     }
 
     public List<Map<String, Object>> getMonthlyRevenue(int year) {
-        List<Object[]> results = orderRepository.sumRevenueByYear(year);
-
-        // 1. Tạo map tạm để lưu doanh thu từng tháng tìm được
-        Map<Integer, Double> revenueMap = new HashMap<>();
-        for (Object[] row : results) {
-            Integer month = (Integer) row[0];
-            Double revenue = (Double) row[1];
-            revenueMap.put(month, revenue);
-        }
+        // 1. Doanh thu từng tháng, cộng từ bảng daily_revenue (tối đa 366 dòng)
+        Map<Integer, Double> revenueMap = revenueRollupService.getMonthlyRevenue(year);
 
         // 2. Tạo danh sách đủ 12 tháng (Tháng nào không có thì set = 0)
         List<Map<String, Object>> finalData = new ArrayList<>();
@@ -258,12 +434,26 @@ public class OrderService {
         return finalData;
     }
 
+    public List<DailyRevenue> getDailyRevenue(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new RuntimeException("Ngày bắt đầu phải trước ngày kết thúc");
+        }
+        return revenueRollupService.getDailyRevenue(from, to);
+    }
+
     // === HELPER: MAPPER ===
+    // Chỉ dùng dữ liệu đã lưu trong đơn, không gọi product-service khi đọc đơn
+    private List<OrderResponse> mapToOrderResponses(List<Order> orders) {
+        return orders.stream()
+                .map(this::mapToOrderResponse)
+                .collect(Collectors.toList());
+    }
+
     private OrderResponse mapToOrderResponse(Order order) {
         List<OrderDetailResponse> details = order.getOrderDetails().stream()
                 .map(d -> OrderDetailResponse.builder()
                         .productId(d.getProductId())
-                        .productName(productClient.getProductById(d.getProductId()).getProductName()) // Tạm thời chưa có tên
+                        .productName(d.getProductName())
                         .quantity(d.getQuantity())
                         .price(d.getPrice())
                         .totalPrice(d.getTotalPrice())
@@ -0,0 +1,74 @@
+package com.luxurydecor.order_service.service;
+
+import com.luxurydecor.order_service.dto.response.ExternalProductResponse;
+import com.luxurydecor.order_service.repository.OrderDetailRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Điền tên sản phẩm cho các dòng chi tiết đơn cũ (tạo trước khi có cột product_name_snapshot)
+// - Duyệt theo productId tăng dần, mỗi lô gọi product-service /batch 1 lần
+// - Sản phẩm đã bị xóa thì để trống, lỗi giữa chừng thì lần khởi động sau chạy tiếp
+@Service
+@RequiredArgsConstructor
+public class OrderSnapshotBackfillService {
+    private final OrderDetailRepository orderDetailRepository;
+    private final ProductLookupService productLookupService;
+
+    @Value("${order.snapshot-backfill.enabled:true}")
+    private boolean enabled;
+
+    @Value("${order.snapshot-backfill.batch-size:200}")
+    private int batchSize;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    // Chạy nền khi khởi động, không chặn việc nhận request
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (enabled) {
+            Thread.ofVirtual().name("order-snapshot-backfill").start(this::backfill);
+        }
+    }
+
+    // Trả về số dòng chi tiết đã được điền tên (0 nếu đang có lần chạy khác)
+    public int backfill() {
+        if (!running.compareAndSet(false, true)) {
+            return 0;
+        }
+        int updated = 0;
+        try {
+            Integer lastProductId = Integer.MIN_VALUE;
+            while (true) {
+                List<Integer> productIds = orderDetailRepository.findProductIdsMissingName(
+                        lastProductId, PageRequest.of(0, Math.max(1, batchSize)));
+                if (productIds.isEmpty()) {
+                    break;
+                }
+                Map<Integer, ExternalProductResponse> products = productLookupService.getProductsByIds(productIds);
+                for (Integer productId : productIds) {
+                    ExternalProductResponse product = products.get(productId);
+                    if (product != null && product.getProductName() != null) {
+                        updated += orderDetailRepository.fillProductName(productId, product.getProductName());
+                    }
+                }
+                lastProductId = productIds.get(productIds.size() - 1);
+            }
+            if (updated > 0) {
+                System.out.println("Đã điền tên sản phẩm cho " + updated + " dòng chi tiết đơn cũ");
+            }
+        } catch (Exception e) {
+            System.out.println("Điền tên sản phẩm cho đơn cũ bị lỗi (sẽ chạy lại lần sau): " + e.getMessage());
+        } finally {
+            running.set(false);
+        }
+        return updated;
+    }
+}
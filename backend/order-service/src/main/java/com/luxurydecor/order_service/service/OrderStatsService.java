@@ -0,0 +1,90 @@
+package com.luxurydecor.order_service.service;
+
+import com.luxurydecor.order_service.dto.response.OrderStatsResponse;
+import com.luxurydecor.order_service.entity.Order;
+import com.luxurydecor.order_service.entity.OrderStats;
+import com.luxurydecor.order_service.enums.OrderStatus;
+import com.luxurydecor.order_service.repository.OrderStatsRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+// Thống kê đơn hàng dạng tổng hợp sẵn (order_stats)
+// - Mỗi lần tạo đơn / đổi trạng thái: cộng trừ vào dòng của trạng thái cũ và mới
+// - Dashboard chỉ đọc vài dòng, không phụ thuộc số lượng đơn
+@Service
+@RequiredArgsConstructor
+public class OrderStatsService {
+    private final OrderStatsRepository orderStatsRepository;
+    private final RevenueRollupService revenueRollupService;
+
+    // Đơn mới tạo (chạy trong transaction của placeOrder)
+    @Transactional
+    public void recordCreated(Order order) {
+        orderStatsRepository.addDelta(order.getStatus().name(), 1, money(order));
+    }
+
+    // Đơn đổi trạng thái from -> to
+    @Transactional
+    public void recordTransition(Order order, OrderStatus from, OrderStatus to) {
+        if (from == to || to == null) {
+            return;
+        }
+        if (from != null) {
+            orderStatsRepository.addDelta(from.name(), -1, -money(order));
+        }
+        orderStatsRepository.addDelta(to.name(), 1, money(order));
+        revenueRollupService.recordTransition(order, from, to);
+    }
+
+    public OrderStatsResponse getOrderStats() {
+        Map<OrderStatus, OrderStats> rows = new EnumMap<>(OrderStatus.class);
+        orderStatsRepository.findAll().forEach(row -> rows.put(row.getStatus(), row));
+
+        long total = rows.values().stream().mapToLong(OrderStats::getOrderCount).sum();
+
+        // Doanh thu: Chỉ tính đơn đã Giao thành công (DELIVERED)
+        return OrderStatsResponse.builder()
+                .totalRevenue(rows.containsKey(OrderStatus.DELIVERED) ? rows.get(OrderStatus.DELIVERED).getTotalMoney() : 0.0)
+                .totalOrders(total)
+                .pendingOrders(count(rows, OrderStatus.PENDING))
+                .shippingOrders(count(rows, OrderStatus.SHIPPING))
+                .successOrders(count(rows, OrderStatus.DELIVERED))
+                .cancelledOrders(count(rows, OrderStatus.CANCELLED))
+                .build();
+    }
+
+    // Lần đầu chạy (bảng tổng hợp còn trống) -> dựng lại từ dữ liệu đơn hàng hiện có
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillIfEmpty() {
+        // Khóa trước khi đếm: nhiều instance cùng khởi động thì chỉ 1 instance dựng, các instance khác thấy đã có dữ liệu
+        orderStatsRepository.lockForRebuild();
+        if (orderStatsRepository.count() == 0) {
+            orderStatsRepository.rebuildFromOrders();
+        }
+    }
+
+    // Dựng lại toàn bộ (dùng khi nghi ngờ lệch số liệu), gồm cả doanh thu theo ngày
+    @Transactional
+    public void rebuild() {
+        orderStatsRepository.lockForRebuild();
+        orderStatsRepository.deleteAllRows();
+        orderStatsRepository.rebuildFromOrders();
+        revenueRollupService.rebuild();
+    }
+
+    private static long count(Map<OrderStatus, OrderStats> rows, OrderStatus status) {
+        OrderStats row = rows.get(status);
+        return row == null ? 0 : row.getOrderCount();
+    }
+
+    private static double money(Order order) {
+        return order.getTotalMoney() == null ? 0 : order.getTotalMoney();
+    }
+}
@@ -0,0 +1,80 @@
+package com.luxurydecor.order_service.service;
+
+import com.luxurydecor.order_service.client.ProductClient;
+import com.luxurydecor.order_service.dto.request.ProductQuantityRequest;
+import com.luxurydecor.order_service.dto.request.ReserveStockRequest;
+import com.luxurydecor.order_service.entity.Order;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Gom các thao tác kho của 1 đơn hàng với product-service
+// Đặt đơn chỉ giữ hàng (có hạn), thanh toán / xác nhận mới trừ kho thật,
+// hủy hoặc thanh toán lỗi thì trả phần đang giữ, không cần gọi restore-stock
+@Service
+@RequiredArgsConstructor
+public class OrderStockService {
+    private final ProductClient productClient;
+    private final ProductLookupService productLookupService;
+
+    // Đơn VNPAY giữ hàng hết thời hạn link thanh toán (15 phút) + thời gian bộ đối soát chốt đơn
+    @Value("${stock.reservation.payment-ttl-minutes:25}")
+    private int paymentTtlMinutes;
+
+    // Đơn COD giữ hàng đến khi admin xác nhận
+    @Value("${stock.reservation.cod-ttl-minutes:10080}")
+    private int codTtlMinutes;
+
+    public void reserve(Order order) {
+        int ttlMinutes = "VNPAY".equalsIgnoreCase(order.getPaymentMethod()) ? paymentTtlMinutes : codTtlMinutes;
+        List<ProductQuantityRequest> items = toQuantityRequests(order);
+        productClient.reserveStock(ReserveStockRequest.builder()
+                .orderId(order.getOrderId())
+                .ttlMinutes(ttlMinutes)
+                .items(items)
+                .build());
+        evictProducts(items);
+    }
+
+    public void commit(Order order) {
+        productClient.commitReservation(order.getOrderId());
+        evictProducts(toQuantityRequests(order));
+    }
+
+    public void release(Order order) {
+        List<ProductQuantityRequest> items = toQuantityRequests(order);
+        Boolean released = productClient.releaseReservation(order.getOrderId());
+        if (!Boolean.TRUE.equals(released)) {
+            // Đơn đặt trước khi có cơ chế giữ hàng -> kho đã bị trừ, phải hoàn lại
+            productClient.restoreStock(items);
+        }
+        evictProducts(items);
+    }
+
+    // Bù trừ khi đơn không được lưu: chỉ trả phần đang giữ, không restore-stock như đơn cũ
+    // Lỗi chỉ ghi log, phần giữ hàng còn sót sẽ được product-service trả khi hết hạn
+    public void cancelReservation(Order order) {
+        try {
+            productClient.releaseReservation(order.getOrderId());
+            evictProducts(toQuantityRequests(order));
+        } catch (Exception e) {
+            System.out.println("Không trả được hàng đang giữ của đơn " + order.getOrderId() + ": " + e.getMessage());
+        }
+    }
+
+    private List<ProductQuantityRequest> toQuantityRequests(Order order) {
+        return order.getOrderDetails().stream()
+                .map(detail -> ProductQuantityRequest.builder()
+                        .productId(detail.getProductId())
+                        .quantity(detail.getQuantity())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    private void evictProducts(List<ProductQuantityRequest> items) {
+        productLookupService.evict(items.stream().map(ProductQuantityRequest::getProductId).toList());
+    }
+}
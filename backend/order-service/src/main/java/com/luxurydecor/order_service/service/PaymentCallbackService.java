@@ -0,0 +1,114 @@
+package com.luxurydecor.order_service.service;
+
+import com.luxurydecor.order_service.client.ProductClientFallbackFactory;
+import com.luxurydecor.order_service.entity.Order;
+import com.luxurydecor.order_service.entity.PaymentCallback;
+import com.luxurydecor.order_service.enums.OrderStatus;
+import com.luxurydecor.order_service.repository.OrderRepository;
+import com.luxurydecor.order_service.repository.PaymentCallbackRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Xử lý callback VNPAY (đã kiểm tra chữ ký) theo kiểu idempotent
+// 1. Ghi (vnp_TxnRef, vnp_TransactionNo) vào sổ callback, trùng thì trả lại kết quả cũ, không đọc / ghi đơn hàng
+// 2. Chuyển trạng thái đơn bằng 1 câu UPDATE có điều kiện (PENDING + UNPAID), chỉ 1 callback thắng
+// 3. Chỉ callback thắng mới chốt / trả kho và cập nhật thống kê
+// 4. Thanh toán thành công cho đơn đã hủy / hết hạn -> không mở lại đơn, đánh dấu REFUND_REQUIRED để hoàn tiền
+// 5. Thanh toán thành công nhưng không chốt được kho (giữ hàng đã hết hạn, hàng đã bán hết) -> hủy đơn + REFUND_REQUIRED
+// Product-service tạm thời không phục vụ được -> rollback cả sổ callback, lần gọi lại sẽ xử lý lại từ đầu
+@Service
+@RequiredArgsConstructor
+public class PaymentCallbackService {
+    private static final String UNPAID = "UNPAID";
+
+    private final PaymentCallbackRepository paymentCallbackRepository;
+    private final OrderRepository orderRepository;
+    private final OrderStockService orderStockService;
+    private final OrderStatsService orderStatsService;
+
+    @Transactional
+    public Map<String, Object> process(String orderId, String transactionNo, String responseCode) {
+        String txnNo = transactionNo == null ? "" : transactionNo;
+
+        if (paymentCallbackRepository.claim(orderId, txnNo, responseCode) == 0) {
+            // Callback trùng -> trả lại kết quả của lần xử lý trước
+            return paymentCallbackRepository.findByTxnRefAndTransactionNo(orderId, txnNo)
+                    .map(PaymentCallbackService::recordedResult)
+                    .orElseGet(() -> result("error", "Giao dịch đang được xử lý", orderId));
+        }
+
+        Map<String, Object> result = settle(orderId, "00".equals(responseCode));
+        paymentCallbackRepository.recordResult(orderId, txnNo,
+                (String) result.get("status"), (String) result.get("message"));
+        return result;
+    }
+
+    private Map<String, Object> settle(String orderId, boolean paid) {
+        Order order = orderRepository.findById(orderId).orElse(null);
+        if (order == null) {
+            return result("error", "Không tìm thấy đơn hàng", null);
+        }
+
+        OrderStatus toStatus = paid ? OrderStatus.CONFIRMED : OrderStatus.CANCELLED;
+        int changed = orderRepository.transitionPayment(orderId, OrderStatus.PENDING, UNPAID,
+                toStatus, paid ? "PAID" : "FAILED");
+        if (changed == 0) {
+            // Đơn đã được chốt bởi callback khác (hoặc đã bị hủy) -> không lật trạng thái, không đụng kho
+            if ("PAID".equals(order.getPaymentStatus())) {
+                return result("success", "Đơn hàng đã được thanh toán trước đó", orderId);
+            }
+            if (paid) {
+                // Khách trả tiền sau khi đơn đã hủy / hết hạn: tiền đã bị trừ -> ghi nhận để hoàn tiền,
+                // mã giao dịch VNPAY được lưu trong sổ callback
+                orderRepository.markRefundRequired(orderId);
+                return result("refund", "Đơn hàng đã bị hủy trước khi thanh toán xong, tiền sẽ được hoàn lại", orderId);
+            }
+            return result("failed", "Giao dịch thất bại", orderId);
+        }
+
+        // Đơn trong persistence context vẫn giữ trạng thái cũ (PENDING), dùng để tính thống kê
+        if (paid) {
+            // Thanh toán xong -> chốt phần hàng đang giữ
+            try {
+                orderStockService.commit(order);
+            } catch (RuntimeException e) {
+                if (ProductClientFallbackFactory.isUnavailable(e)) {
+                    throw e;
+                }
+                // Product-service trả lời 4xx: giữ hàng đã bị trả và kho không còn đủ -> thử lại cũng vậy
+                // Hủy đơn ngay trong transaction này, đánh dấu hoàn tiền thay vì để đơn treo PENDING / UNPAID
+                orderRepository.transitionPayment(orderId, OrderStatus.CONFIRMED, "PAID", OrderStatus.CANCELLED, UNPAID);
+                orderRepository.markRefundRequired(orderId);
+                orderStatsService.recordTransition(order, OrderStatus.PENDING, OrderStatus.CANCELLED);
+                System.out.println("Đơn " + orderId + " đã thanh toán nhưng không chốt được kho: " + e.getMessage());
+                return result("refund", "Sản phẩm trong đơn đã hết hàng, đơn bị hủy và tiền sẽ được hoàn lại", orderId);
+            }
+        } else {
+            // Thanh toán lỗi -> trả lại hàng đang giữ cho người khác mua
+            orderStockService.release(order);
+        }
+        orderStatsService.recordTransition(order, OrderStatus.PENDING, toStatus);
+
+        return paid
+                ? result("success", "Thanh toán thành công", orderId)
+                : result("failed", "Giao dịch thất bại", orderId);
+    }
+
+    private static Map<String, Object> recordedResult(PaymentCallback callback) {
+        return result(callback.getResultStatus(), callback.getResultMessage(), callback.getTxnRef());
+    }
+
+    private static Map<String, Object> result(String status, String message, String orderId) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("status", status);
+        result.put("message", message);
+        if (orderId != null) {
+            result.put("orderId", orderId);
+        }
+        return result;
+    }
+}
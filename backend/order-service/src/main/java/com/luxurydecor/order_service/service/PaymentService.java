@@ -2,25 +2,28 @@ package com.luxurydecor.order_service.service;
 
 import com.luxurydecor.order_service.config.VNPayConfig;
 import com.luxurydecor.order_service.entity.Order;
-import com.luxurydecor.order_service.enums.OrderStatus;
 import com.luxurydecor.order_service.repository.OrderRepository;
+import com.luxurydecor.order_service.payment.VnPaySigner;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.io.UnsupportedEncodingException;
-import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.util.*;
 
 @Service
 public class PaymentService {
 
+    @Autowired
+    private PaymentCallbackService paymentCallbackService;
+
+    @Autowired
+    private VnPaySigner vnPaySigner;
+
     @Autowired
     private OrderRepository orderRepository;
 
-    public String createVnPayPayment(HttpServletRequest request, long amount, String orderInfo, String orderId) throws UnsupportedEncodingException {
+    public String createVnPayPayment(HttpServletRequest request, long amount, String orderInfo, String orderId) {
         String vnp_Version = "2.1.0";
         String vnp_Command = "pay";
         String orderType = "other";
@@ -61,40 +64,11 @@ public class PaymentService {
         String vnp_ExpireDate = formatter.format(cld.getTime());
         vnp_Params.put("vnp_ExpireDate", vnp_ExpireDate);
 
-        // Sắp xếp tham số theo a-z để tạo checksum đúng
-        List fieldNames = new ArrayList(vnp_Params.keySet());
-        Collections.sort(fieldNames);
-        StringBuilder hashData = new StringBuilder();
-        StringBuilder query = new StringBuilder();
-        Iterator itr = fieldNames.iterator();
-        while (itr.hasNext()) {
-            String fieldName = (String) itr.next();
-            String fieldValue = (String) vnp_Params.get(fieldName);
-            if ((fieldValue != null) && (fieldValue.length() > 0)) {
-                // Build hash data
-                hashData.append(fieldName);
-                hashData.append('=');
-                hashData.append(URLEncoder.encode(fieldValue, StandardCharsets.US_ASCII.toString()));
-                // Build query
-                query.append(URLEncoder.encode(fieldName, StandardCharsets.US_ASCII.toString()));
-                query.append('=');
-                query.append(URLEncoder.encode(fieldValue, StandardCharsets.US_ASCII.toString()));
-                if (itr.hasNext()) {
-                    query.append('&');
-                    hashData.append('&');
-                }
-            }
-        }
+        // Lưu lại thời điểm tạo link, bộ đối soát cần gửi đúng giá trị này khi gọi querydr
+        orderRepository.recordVnPayCreateDate(orderId, vnp_CreateDate);
 
-        String queryUrl = query.toString();
-        // In ra chuỗi dữ liệu thô trước khi Hash để kiểm tra
-        System.out.println("------------------------------------------------");
-        System.out.println("Raw Hash Data: " + hashData.toString());
-        System.out.println("Secret Key: " + VNPayConfig.vnp_HashSecret);
-        System.out.println("------------------------------------------------");
-        // Tạo Secure Hash
-        String vnp_SecureHash = VNPayConfig.hmacSHA512(VNPayConfig.vnp_HashSecret, hashData.toString());
-        queryUrl += "&vnp_SecureHash=" + vnp_SecureHash;
+        // Sắp xếp tham số theo a-z, encode 1 lần, ký và gắn vnp_SecureHash
+        String queryUrl = vnPaySigner.signedQuery(vnp_Params);
 
         return VNPayConfig.vnp_PayUrl + "?" + queryUrl;
     }
@@ -103,68 +77,13 @@ public class PaymentService {
         Map<String, Object> result = new HashMap<>();
 
         try {
-            // Lấy vnp_SecureHash từ URL ra để đối chiếu
-            String vnp_SecureHash = queryParams.get("vnp_SecureHash");
-
-            // Loại bỏ các params không tham gia vào tạo checksum
-            if (queryParams.containsKey("vnp_SecureHashType")) {
-                queryParams.remove("vnp_SecureHashType");
-            }
-            if (queryParams.containsKey("vnp_SecureHash")) {
-                queryParams.remove("vnp_SecureHash");
-            }
-
-            // Sắp xếp và Hash lại dữ liệu để kiểm tra tính toàn vẹn
-            List fieldNames = new ArrayList(queryParams.keySet());
-            Collections.sort(fieldNames);
-            StringBuilder hashData = new StringBuilder();
-            Iterator itr = fieldNames.iterator();
-            while (itr.hasNext()) {
-                String fieldName = (String) itr.next();
-                String fieldValue = (String) queryParams.get(fieldName);
-                if ((fieldValue != null) && (fieldValue.length() > 0)) {
-                    hashData.append(fieldName);
-                    hashData.append('=');
-                    hashData.append(URLEncoder.encode(fieldValue, StandardCharsets.US_ASCII.toString()));
-                    if (itr.hasNext()) {
-                        hashData.append('&');
-                    }
-                }
-            }
-
-            String signValue = VNPayConfig.hmacSHA512(VNPayConfig.vnp_HashSecret, hashData.toString());
-
-            // Check checksum
-            if (signValue.equals(vnp_SecureHash)) {
-                String orderId = queryParams.get("vnp_TxnRef"); // Lấy lại Order ID đã gửi đi
-                // Tìm đơn hàng và update
-                Order order = orderRepository.findById(orderId).orElse(null);
-                // Checksum đúng -> Kiểm tra tình trạng thanh toán
-                if ("00".equals(queryParams.get("vnp_ResponseCode"))) {
-
-                    // THANH TOÁN THÀNH CÔNG
-                    if (order != null) {
-                        order.setPaymentStatus("PAID");
-                        order.setStatus(OrderStatus.CONFIRMED);
-                        orderRepository.save(order);
-
-                        result.put("status", "success");
-                        result.put("message", "Thanh toán thành công");
-                        result.put("orderId", orderId);
-                    } else {
-                        result.put("status", "error");
-                        result.put("message", "Không tìm thấy đơn hàng");
-                    }
-                } else {
-                    // THANH TOÁN THẤT BẠI (Do hủy hoặc lỗi thẻ)
-                    if (order != null) {
-                        order.setPaymentStatus("FAILED");
-                        order.setStatus(OrderStatus.CANCELLED);
-                        orderRepository.save(order);
-                    }
-                    result.put("status", "failed");
-                    result.put("message", "Giao dịch thất bại");
-                }
+            // Ký lại các tham số (trừ vnp_SecureHash / vnp_SecureHashType) để kiểm tra tính toàn vẹn
+            if (vnPaySigner.verify(queryParams)) {
+                // Checksum đúng -> chốt kết quả 1 lần duy nhất cho mỗi giao dịch (callback trùng không ghi DB)
+                result.putAll(paymentCallbackService.process(
+                        queryParams.get("vnp_TxnRef"), // Lấy lại Order ID đã gửi đi
+                        queryParams.get("vnp_TransactionNo"),
+                        queryParams.get("vnp_ResponseCode")));
             } else {
                 // CHECKSUM SAI (Có dấu hiệu giả mạo)
                 result.put("status", "error");
@@ -176,4 +95,47 @@ public class PaymentService {
         }
         return result;
     }
+
+    // IPN: VNPAY gọi thẳng vào server, không phụ thuộc trình duyệt của khách
+    // Trả về RspCode theo quy ước của VNPAY (00 = đã ghi nhận, VNPAY sẽ ngừng gửi lại)
+    public Map<String, String> handleIpn(Map<String, String> queryParams) {
+        try {
+            if (!vnPaySigner.verify(queryParams)) {
+                return ipnResponse("97", "Invalid Checksum");
+            }
+            String orderId = queryParams.get("vnp_TxnRef");
+            Order order = orderId == null ? null : orderRepository.findById(orderId).orElse(null);
+            if (order == null) {
+                return ipnResponse("01", "Order not found");
+            }
+            long expectedAmount = Math.round(order.getTotalMoney() == null ? 0 : order.getTotalMoney()) * 100;
+            if (!String.valueOf(expectedAmount).equals(queryParams.get("vnp_Amount"))) {
+                return ipnResponse("04", "Invalid Amount");
+            }
+            if ("PAID".equals(order.getPaymentStatus())) {
+                return ipnResponse("02", "Order already confirmed");
+            }
+
+            // Đơn đã hủy / hết hạn vẫn phải xử lý: tiền về muộn được ghi nhận để hoàn lại
+            Map<String, Object> result = paymentCallbackService.process(orderId,
+                    queryParams.get("vnp_TransactionNo"),
+                    queryParams.get("vnp_ResponseCode"));
+            if ("error".equals(result.get("status"))) {
+                // Chưa ghi nhận được (vd đang có lần xử lý khác) -> VNPAY gửi lại sau
+                return ipnResponse("99", "Unknown error");
+            }
+            // success / failed / refund đều đã được lưu lại
+            return ipnResponse("00", "Confirm Success");
+        } catch (Exception e) {
+            System.out.println("Xử lý IPN VNPAY lỗi: " + e.getMessage());
+            return ipnResponse("99", "Unknown error");
+        }
+    }
+
+    private static Map<String, String> ipnResponse(String code, String message) {
+        Map<String, String> response = new HashMap<>();
+        response.put("RspCode", code);
+        response.put("Message", message);
+        return response;
+    }
 }
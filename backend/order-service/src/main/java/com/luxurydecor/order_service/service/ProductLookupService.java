@@ -0,0 +1,112 @@
+package com.luxurydecor.order_service.service;
+
+import com.luxurydecor.order_service.cache.ProductSnapshotCache;
+import com.luxurydecor.order_service.client.ProductClient;
+import com.luxurydecor.order_service.client.ProductClientFallbackFactory;
+import com.luxurydecor.order_service.dto.response.ExternalProductResponse;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+@Service
+@RequiredArgsConstructor
+public class ProductLookupService {
+    private final ProductClient productClient;
+    private final ProductSnapshotCache productCache;
+
+    // Mỗi lần gọi product-service chạy trên 1 virtual thread riêng
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Thời gian chờ tối đa cho mỗi lần gọi, quá hạn thì dùng sản phẩm giữ chỗ
+    @Value("${product.lookup.timeout-ms:2000}")
+    private long timeoutMs;
+
+    // Lấy 1 sản phẩm (ưu tiên cache), lỗi từ product-service được ném ra cho bên gọi xử lý
+    public ExternalProductResponse getProduct(Integer productId) {
+        ExternalProductResponse product = productCache.get(productId);
+        if (product == null) {
+            product = productClient.getProductById(productId);
+            productCache.put(product);
+        }
+        return product;
+    }
+
+    // Lấy nhiều sản phẩm: phần có trong cache trả luôn, phần còn thiếu gọi /batch 1 lần
+    // Id không tồn tại sẽ không có trong kết quả
+    public Map<Integer, ExternalProductResponse> getProductsByIds(Collection<Integer> productIds) {
+        Map<Integer, ExternalProductResponse> products = new HashMap<>();
+        List<Integer> missingIds = new ArrayList<>();
+        for (Integer productId : new LinkedHashSet<>(productIds)) {
+            ExternalProductResponse cached = productCache.get(productId);
+            if (cached != null) {
+                products.put(productId, cached);
+            } else {
+                missingIds.add(productId);
+            }
+        }
+
+        if (!missingIds.isEmpty()) {
+            for (ExternalProductResponse product : productClient.getProductsByIds(missingIds)) {
+                productCache.put(product);
+                products.put(product.getProductId(), product);
+            }
+        }
+        return products;
+    }
+
+    // Lấy thông tin nhiều sản phẩm song song, mỗi productId chỉ gọi 1 lần
+    // Sản phẩm lỗi / quá hạn / mạch đang mở được thay bằng sản phẩm giữ chỗ, không làm hỏng cả giỏ hàng
+    public Map<Integer, ExternalProductResponse> fetchProducts(Collection<Integer> productIds) {
+        Map<Integer, ExternalProductResponse> products = new HashMap<>();
+        Map<Integer, CompletableFuture<ExternalProductResponse>> futures = new LinkedHashMap<>();
+        for (Integer productId : productIds) {
+            if (products.containsKey(productId) || futures.containsKey(productId)) {
+                continue;
+            }
+            ExternalProductResponse cached = productCache.get(productId);
+            if (cached != null) {
+                products.put(productId, cached);
+                continue;
+            }
+            futures.put(productId, CompletableFuture
+                    .supplyAsync(() -> productClient.getProductById(productId), executor)
+                    .completeOnTimeout(null, timeoutMs, TimeUnit.MILLISECONDS)
+                    .exceptionally(ex -> null));
+        }
+
+        // Các future chạy đồng thời nên tổng thời gian chỉ bằng lần gọi chậm nhất
+        futures.forEach((productId, future) -> {
+            ExternalProductResponse product = future.join();
+            if (product != null) {
+                productCache.put(product);
+                products.put(productId, product);
+            } else {
+                products.put(productId, ProductClientFallbackFactory.unavailableProduct(productId));
+            }
+        });
+        return products;
+    }
+
+    // Xóa cache các sản phẩm vừa thay đổi tồn kho / giá
+    public void evict(Collection<Integer> productIds) {
+        productCache.evict(productIds);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,73 @@
+package com.luxurydecor.order_service.service;
+
+import com.luxurydecor.order_service.entity.DailyRevenue;
+import com.luxurydecor.order_service.entity.Order;
+import com.luxurydecor.order_service.enums.OrderStatus;
+import com.luxurydecor.order_service.repository.DailyRevenueRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Doanh thu tổng hợp sẵn theo ngày (daily_revenue)
+// - Đơn chuyển sang DELIVERED: cộng vào ngày đặt đơn; rời khỏi DELIVERED: trừ lại
+// - Biểu đồ doanh thu chỉ đọc tối đa 366 dòng theo khoảng ngày, không quét bảng orders
+@Service
+@RequiredArgsConstructor
+public class RevenueRollupService {
+    private final DailyRevenueRepository dailyRevenueRepository;
+
+    // Được gọi từ OrderStatsService trong cùng transaction đổi trạng thái
+    @Transactional
+    public void recordTransition(Order order, OrderStatus from, OrderStatus to) {
+        if (from == to || order.getOrderDate() == null) {
+            return;
+        }
+        double money = order.getTotalMoney() == null ? 0 : order.getTotalMoney();
+        LocalDate day = order.getOrderDate().toLocalDate();
+        if (to == OrderStatus.DELIVERED) {
+            dailyRevenueRepository.addDelta(day, money, 1);
+        } else if (from == OrderStatus.DELIVERED) {
+            dailyRevenueRepository.addDelta(day, -money, -1);
+        }
+    }
+
+    // Doanh thu từng ngày trong khoảng [from, to]
+    public List<DailyRevenue> getDailyRevenue(LocalDate from, LocalDate to) {
+        return dailyRevenueRepository.findByRevenueDateBetweenOrderByRevenueDateAsc(from, to);
+    }
+
+    // Doanh thu 12 tháng của 1 năm (tháng 1..12)
+    public Map<Integer, Double> getMonthlyRevenue(int year) {
+        Map<Integer, Double> revenueByMonth = new HashMap<>();
+        for (DailyRevenue day : getDailyRevenue(LocalDate.of(year, 1, 1), LocalDate.of(year, 12, 31))) {
+            revenueByMonth.merge(day.getRevenueDate().getMonthValue(), day.getRevenue(), Double::sum);
+        }
+        return revenueByMonth;
+    }
+
+    // Lần đầu chạy: dựng từ các đơn DELIVERED đã có
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillIfEmpty() {
+        // Khóa trước khi đếm: nhiều instance cùng khởi động thì chỉ 1 instance dựng, các instance khác thấy đã có dữ liệu
+        dailyRevenueRepository.lockForRebuild();
+        if (dailyRevenueRepository.count() == 0) {
+            dailyRevenueRepository.rebuildFromOrders();
+        }
+    }
+
+    @Transactional
+    public void rebuild() {
+        dailyRevenueRepository.lockForRebuild();
+        dailyRevenueRepository.deleteAllRows();
+        dailyRevenueRepository.rebuildFromOrders();
+    }
+}
@@ -0,0 +1,163 @@
+package com.luxurydecor.order_service.service;
+
+import com.luxurydecor.order_service.entity.Order;
+import com.luxurydecor.order_service.enums.OrderStatus;
+import com.luxurydecor.order_service.payment.VnPayQueryClient;
+import com.luxurydecor.order_service.payment.VnPayQueryClient.QueryResult;
+import com.luxurydecor.order_service.repository.OrderRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+// Đối soát định kỳ các đơn VNPAY còn PENDING / UNPAID với API querydr
+// - Mỗi lượt lấy 1 lô đơn cũ nhất, hỏi VNPAY song song (giới hạn số lệnh đồng thời), rồi mới áp kết quả
+// - Áp kết quả qua PaymentCallbackService nên trùng với IPN / callback cũng chỉ chốt đơn 1 lần
+// - Quá hạn link thanh toán (tính từ vnp_CreateDate, link có thể được tạo muộn sau khi đặt đơn)
+//   mà VNPAY không ghi nhận giao dịch thành công -> hủy đơn, trả hàng đang giữ
+// - Đơn không có vnp_CreateDate = chưa từng tạo link nên khách không thể đã trả tiền
+//   -> không hỏi querydr, quá hạn (tính từ lúc đặt) thì hủy như đơn chưa thanh toán
+// - Lịch chạy phải khớp stock.reservation.payment-ttl-minutes: đơn được chốt trước khi hết hạn giữ hàng
+@Service
+@RequiredArgsConstructor
+public class VnPayReconciler {
+    // Cùng định dạng / múi giờ PaymentService dùng khi sinh vnp_CreateDate
+    private static final DateTimeFormatter VNP_DATE = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+    private static final ZoneId VNP_ZONE = ZoneId.of("Etc/GMT+7");
+
+    private final OrderRepository orderRepository;
+    private final VnPayQueryClient queryClient;
+    private final PaymentCallbackService paymentCallbackService;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Value("${vnpay.reconcile.batch-size:100}")
+    private int batchSize;
+
+    @Value("${vnpay.reconcile.concurrency:8}")
+    private int concurrency;
+
+    @Value("${vnpay.reconcile.min-age-minutes:2}")
+    private long minAgeMinutes;
+
+    @Value("${vnpay.reconcile.expire-after-minutes:17}")
+    private long expireAfterMinutes;
+
+    @Value("${vnpay.reconcile.max-age-hours:72}")
+    private long maxAgeHours;
+
+    @Scheduled(fixedDelayString = "${vnpay.reconcile.interval-ms:60000}",
+            initialDelayString = "${vnpay.reconcile.interval-ms:60000}")
+    public void scheduledReconcile() {
+        try {
+            Map<String, Integer> summary = reconcile();
+            if (summary.get("checked") > 0) {
+                System.out.println("Đối soát VNPAY: " + summary);
+            }
+        } catch (Exception e) {
+            System.out.println("Đối soát VNPAY bị lỗi: " + e.getMessage());
+        }
+    }
+
+    // Trả về số đơn theo từng kết quả: checked, paid, failed, expired, waiting, error
+    public Map<String, Integer> reconcile() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Order> orders = orderRepository.findPendingVnPayOrders(OrderStatus.PENDING,
+                now.minusHours(maxAgeHours), now.minusMinutes(minAgeMinutes),
+                PageRequest.of(0, Math.max(1, batchSize)));
+
+        // 1. Hỏi VNPAY song song, tối đa `concurrency` lệnh cùng lúc
+        Semaphore permits = new Semaphore(Math.max(1, concurrency));
+        Map<Order, CompletableFuture<QueryResult>> queries = new LinkedHashMap<>();
+        for (Order order : orders) {
+            if (order.getVnpCreateDate() == null) {
+                // Chưa tạo link thanh toán -> không có gì để hỏi VNPAY, chỉ xét hết hạn
+                queries.put(order, CompletableFuture.completedFuture(null));
+                continue;
+            }
+            queries.put(order, CompletableFuture.supplyAsync(() -> {
+                permits.acquireUninterruptibly();
+                try {
+                    return queryClient.query(order.getOrderId(), order.getVnpCreateDate());
+                } finally {
+                    permits.release();
+                }
+            }, executor));
+        }
+
+        // 2. Áp kết quả sau khi đã có đủ câu trả lời
+        Map<String, Integer> summary = new LinkedHashMap<>();
+        summary.put("checked", orders.size());
+        for (String key : new String[]{"paid", "failed", "expired", "waiting", "error"}) {
+            summary.put(key, 0);
+        }
+        queries.forEach((order, future) -> {
+            try {
+                String outcome = apply(order, future.join(), now);
+                summary.merge(outcome, 1, Integer::sum);
+            } catch (Exception e) {
+                // Lỗi mạng / chữ ký / product-service -> để lượt sau thử lại
+                System.out.println("Đối soát đơn " + order.getOrderId() + " lỗi: " + e.getMessage());
+                summary.merge("error", 1, Integer::sum);
+            }
+        });
+        return summary;
+    }
+
+    private String apply(Order order, QueryResult result, LocalDateTime now) {
+        if (result != null && result.paid()) {
+            long expectedAmount = Math.round(order.getTotalMoney() == null ? 0 : order.getTotalMoney()) * 100;
+            if (result.amount() != null && result.amount() != expectedAmount) {
+                // Số tiền không khớp -> không tự chốt, để admin kiểm tra
+                throw new RuntimeException("Số tiền VNPAY ghi nhận (" + result.amount() + ") khác số tiền đơn hàng");
+            }
+            paymentCallbackService.process(order.getOrderId(), result.transactionNo(), "00");
+            return "paid";
+        }
+        if (result != null && result.found() && !result.inProgress()) {
+            // VNPAY ghi nhận giao dịch lỗi / bị hủy
+            paymentCallbackService.process(order.getOrderId(), result.transactionNo(), result.transactionStatus());
+            return "failed";
+        }
+        if (paymentWindowStart(order).isBefore(now.minusMinutes(expireAfterMinutes))) {
+            // Link thanh toán đã hết hạn (hoặc không có link) mà chưa có giao dịch thành công
+            paymentCallbackService.process(order.getOrderId(), "", "EXPIRED");
+            return "expired";
+        }
+        return "waiting";
+    }
+
+    // Thời điểm link thanh toán bắt đầu có hiệu lực; chưa có link (hoặc giá trị lỗi) thì tính từ lúc đặt đơn
+    private LocalDateTime paymentWindowStart(Order order) {
+        if (order.getVnpCreateDate() == null) {
+            return order.getOrderDate();
+        }
+        try {
+            return LocalDateTime.parse(order.getVnpCreateDate(), VNP_DATE)
+                    .atZone(VNP_ZONE)
+                    .withZoneSameInstant(ZoneId.systemDefault())
+                    .toLocalDateTime();
+        } catch (DateTimeParseException e) {
+            return order.getOrderDate();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
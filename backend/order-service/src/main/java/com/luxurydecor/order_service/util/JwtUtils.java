@@ -1,13 +1,23 @@
 package com.luxurydecor.order_service.util;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 
 @Component
@@ -15,6 +25,29 @@ public class JwtUtils {
     @Value("${jwt.signerKey}")
     private String secretKey;
 
+    // Số token tối đa giữ trong cache claims đã xác thực
+    @Value("${jwt.cache.max-size:10000}")
+    private int cacheMaxSize;
+
+    // Key và parser chỉ tạo 1 lần (JwtParser dùng chung an toàn giữa các thread)
+    private JwtParser parser;
+
+    // SHA-256(token) -> claims đã verify, tự hết hạn theo claim exp
+    // ConcurrentHashMap: đọc không khóa, các request không phải xếp hàng qua 1 khóa chung
+    private final Map<String, CachedClaims> verifiedClaims = new ConcurrentHashMap<>();
+    // Chỉ 1 thread dọn cache khi đầy, thread khác không chờ
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    private record CachedClaims(Claims claims, long expiresAt) {
+    }
+
+    @PostConstruct
+    void init() {
+        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
+        Key signKey = Keys.hmacShaKeyFor(keyBytes);
+        parser = Jwts.parserBuilder().setSigningKey(signKey).build();
+    }
+
     // 1. Lấy UserID từ Token (Quan trọng nhất)
     public Integer extractUserId(String token) {
         return extractClaim(token, claims -> claims.get("userId", Integer.class));
@@ -33,26 +66,70 @@ public class JwtUtils {
         return claimsResolver.apply(claims);
     }
 
+    // Trả về claims đã xác thực, hoặc null nếu token sai chữ ký / hết hạn / lỗi định dạng
+    // Mỗi token chỉ bị parse + verify HMAC 1 lần cho tới khi hết hạn
+    public Claims getVerifiedClaims(String token) {
+        try {
+            return extractAllClaims(token);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSignKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        String cacheKey = hash(token);
+        long now = System.currentTimeMillis();
+
+        CachedClaims cached = verifiedClaims.get(cacheKey);
+        if (cached != null) {
+            if (cached.expiresAt() > now) {
+                return cached.claims();
+            }
+            verifiedClaims.remove(cacheKey, cached);
+        }
+
+        // Token lỗi ném exception và không được cache
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        if (claims.getExpiration() != null) {
+            verifiedClaims.put(cacheKey, new CachedClaims(claims, claims.getExpiration().getTime()));
+            if (verifiedClaims.size() > cacheMaxSize) {
+                evict(now);
+            }
+        }
+        return claims;
     }
 
-    private Key getSignKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+    // Bỏ token đã hết hạn; vẫn đầy (toàn token còn hạn) thì bỏ bớt tùy ý xuống 90% giới hạn
+    // để không phải dọn lại ở mỗi lần thêm
+    private void evict(long now) {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            verifiedClaims.values().removeIf(cached -> cached.expiresAt() <= now);
+            int target = cacheMaxSize - cacheMaxSize / 10;
+            Iterator<String> keys = verifiedClaims.keySet().iterator();
+            while (verifiedClaims.size() > target && keys.hasNext()) {
+                keys.next();
+                keys.remove();
+            }
+        } finally {
+            evicting.set(false);
+        }
     }
 
-    // Kiểm tra token có hợp lệ không (chỉ cần check parse được là ok)
-    public boolean validateToken(String token) {
+    // Không dùng chính token làm key để cache không giữ bản rõ của token
+    private static String hash(String token) {
         try {
-            Jwts.parserBuilder().setSigningKey(getSignKey()).build().parseClaimsJws(token);
-            return true;
-        } catch (Exception e) {
-            return false;
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
     }
+
+    // Kiểm tra token có hợp lệ không (chỉ cần check parse được là ok)
+    public boolean validateToken(String token) {
+        return getVerifiedClaims(token) != null;
+    }
 }
@@ -0,0 +1,112 @@
+package com.luxurydecor.order_service.idgen;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SnowflakeIdGeneratorTest {
+    private static final int THREADS = 16;
+    private static final int IDS_PER_THREAD = 100_000;
+
+    @Test
+    void idsAreUniqueAcrossThreads() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1);
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(THREADS)) {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    String previous = "";
+                    boolean increasing = true;
+                    for (int i = 0; i < IDS_PER_THREAD; i++) {
+                        String id = generator.nextId("OD");
+                        ids.add(id);
+                        // Trong cùng 1 thread, mã sau luôn lớn hơn mã trước (so sánh chuỗi)
+                        increasing &= id.compareTo(previous) > 0;
+                        previous = id;
+                    }
+                    return increasing;
+                }));
+            }
+
+            start.countDown();
+            for (Future<Boolean> result : results) {
+                assertThat(result.get()).isTrue();
+            }
+        }
+
+        assertThat(ids).hasSize(THREADS * IDS_PER_THREAD);
+    }
+
+    @Test
+    void keepsPrefixAndFixedLength() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1023);
+
+        String orderId = generator.nextId("OD");
+        String cartId = generator.nextId("NR");
+
+        assertThat(orderId).startsWith("OD").hasSize(15).matches("OD[0-9A-HJKMNP-TV-Z]{13}");
+        assertThat(cartId).startsWith("NR").hasSize(15);
+    }
+
+    @Test
+    void staysUniqueWhenClockMovesBackwards() {
+        AtomicLong now = new AtomicLong(1_800_000_000_000L);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(0, now::get);
+
+        long first = generator.nextLong();
+        now.addAndGet(-5_000); // Đồng hồ hệ thống bị chỉnh lùi 5 giây
+        long second = generator.nextLong();
+
+        assertThat(second).isGreaterThan(first);
+    }
+
+    @Test
+    void sequenceOverflowBorrowsNextMillisecond() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(0, () -> 1_800_000_000_000L);
+
+        Set<Long> ids = new HashSet<>();
+        long previous = -1;
+        for (int i = 0; i < 10_000; i++) { // Nhiều hơn 4096 mã trong cùng 1 mili giây
+            long id = generator.nextLong();
+            assertThat(id).isGreaterThan(previous);
+            ids.add(id);
+            previous = id;
+        }
+        assertThat(ids).hasSize(10_000);
+    }
+
+    @Test
+    void differentWorkersNeverCollide() {
+        SnowflakeIdGenerator first = new SnowflakeIdGenerator(1, () -> 1_800_000_000_000L);
+        SnowflakeIdGenerator second = new SnowflakeIdGenerator(2, () -> 1_800_000_000_000L);
+
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < 1_000; i++) {
+            ids.add(first.nextLong());
+            ids.add(second.nextLong());
+        }
+        assertThat(ids).hasSize(2_000);
+    }
+
+    @Test
+    void rejectsOutOfRangeWorkerId() {
+        assertThatThrownBy(() -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_WORKER_ID + 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,71 @@
+package com.luxurydecor.order_service.payment;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Gọi querydr tới API VNPAY giả chạy trong cùng process
+class VnPayQueryClientTest {
+    private static final String SECRET = "TESTSECRET0123456789";
+
+    private VnPayStubServer stub;
+    private VnPayQueryClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        VnPaySigner signer = new VnPaySigner(SECRET);
+        stub = new VnPayStubServer(signer);
+        stub.start();
+        client = new VnPayQueryClient(signer, stub.url(), "TESTTMN", 2000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        stub.stop();
+    }
+
+    @Test
+    void returnsPaidTransaction() {
+        stub.transaction("OD1", "00", "14000001", 150_000_00L);
+
+        VnPayQueryClient.QueryResult result = client.query("OD1", "20260101120000");
+
+        // Mã 00 (không phải 97) nghĩa là stub đã chấp nhận chữ ký của request
+        assertThat(result.responseCode()).isEqualTo("00");
+        assertThat(result.paid()).isTrue();
+        assertThat(result.transactionNo()).isEqualTo("14000001");
+        assertThat(result.amount()).isEqualTo(150_000_00L);
+    }
+
+    @Test
+    void reportsInProgressTransaction() {
+        stub.transaction("OD2", "01", "14000002", 100L);
+
+        VnPayQueryClient.QueryResult result = client.query("OD2", "20260101120000");
+
+        assertThat(result.paid()).isFalse();
+        assertThat(result.inProgress()).isTrue();
+    }
+
+    @Test
+    void reportsUnknownTransactionAsNotFound() {
+        VnPayQueryClient.QueryResult result = client.query("OD404", "20260101120000");
+
+        assertThat(result.responseCode()).isEqualTo("91");
+        assertThat(result.found()).isFalse();
+    }
+
+    @Test
+    void rejectsResponseWithInvalidSignature() {
+        stub.transaction("OD3", "00", "14000003", 100L);
+        stub.corruptResponseSignature();
+
+        assertThatThrownBy(() -> client.query("OD3", "20260101120000"))
+                .hasMessageContaining("Chữ ký phản hồi querydr không hợp lệ");
+    }
+}
@@ -0,0 +1,120 @@
+package com.luxurydecor.order_service.payment;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// API querydr giả của VNPAY chạy trong cùng process (không cần mạng / sandbox)
+// - Kiểm tra chữ ký request như VNPAY thật, sai chữ ký trả mã 97
+// - Trả về trạng thái giao dịch đã được test khai báo, không có thì trả mã 91 (không tìm thấy)
+public class VnPayStubServer {
+    public static final String PATH = "/merchant_webapi/api/transaction";
+    private static final Pattern JSON_FIELD = Pattern.compile("\"(vnp_\\w+)\"\\s*:\\s*\"([^\"]*)\"");
+
+    private final VnPaySigner signer;
+    private final Map<String, String[]> transactions = new ConcurrentHashMap<>();
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile boolean corruptResponseSignature = false;
+    private HttpServer server;
+
+    public VnPayStubServer(VnPaySigner signer) {
+        this.signer = signer;
+    }
+
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext(PATH, this::handle);
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+    }
+
+    public String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + PATH;
+    }
+
+    // transactionStatus: 00 thành công, 01 chưa hoàn tất, 02 lỗi...
+    public void transaction(String txnRef, String transactionStatus, String transactionNo, long amount) {
+        transactions.put(txnRef, new String[]{transactionStatus, transactionNo, String.valueOf(amount)});
+    }
+
+    public void corruptResponseSignature() {
+        corruptResponseSignature = true;
+    }
+
+    public int requestCount() {
+        return requests.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        Map<String, String> request = new LinkedHashMap<>();
+        Matcher matcher = JSON_FIELD.matcher(body);
+        while (matcher.find()) {
+            request.put(matcher.group(1), matcher.group(2));
+        }
+
+        String expectedHash = signer.sign(String.join("|",
+                request.get("vnp_RequestId"), request.get("vnp_Version"), request.get("vnp_Command"),
+                request.get("vnp_TmnCode"), request.get("vnp_TxnRef"), request.get("vnp_TransactionDate"),
+                request.get("vnp_CreateDate"), request.get("vnp_IpAddr"), request.get("vnp_OrderInfo")));
+
+        String txnRef = request.getOrDefault("vnp_TxnRef", "");
+        String[] transaction = transactions.get(txnRef);
+        String responseCode;
+        if (!expectedHash.equals(request.get("vnp_SecureHash"))) {
+            responseCode = "97";
+        } else if (transaction == null) {
+            responseCode = "91";
+        } else {
+            responseCode = "00";
+        }
+
+        Map<String, String> response = new LinkedHashMap<>();
+        response.put("vnp_ResponseId", "R" + requests.get());
+        response.put("vnp_Command", "querydr");
+        response.put("vnp_ResponseCode", responseCode);
+        response.put("vnp_Message", "stub");
+        response.put("vnp_TmnCode", request.getOrDefault("vnp_TmnCode", ""));
+        response.put("vnp_TxnRef", txnRef);
+        response.put("vnp_Amount", "00".equals(responseCode) ? transaction[2] : "");
+        response.put("vnp_BankCode", "NCB");
+        response.put("vnp_PayDate", "20260101120500");
+        response.put("vnp_TransactionNo", "00".equals(responseCode) ? transaction[1] : "");
+        response.put("vnp_TransactionType", "01");
+        response.put("vnp_TransactionStatus", "00".equals(responseCode) ? transaction[0] : "");
+        response.put("vnp_OrderInfo", request.getOrDefault("vnp_OrderInfo", ""));
+        response.put("vnp_PromotionCode", "");
+        response.put("vnp_PromotionAmount", "");
+        String hash = signer.sign(String.join("|", response.values()));
+        response.put("vnp_SecureHash", corruptResponseSignature ? (hash.charAt(0) == '0' ? "1" : "0") + hash.substring(1) : hash);
+
+        StringBuilder json = new StringBuilder("{");
+        response.forEach((name, value) -> {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append('"').append(name).append("\":\"").append(value).append('"');
+        });
+        byte[] bytes = json.append('}').toString().getBytes(StandardCharsets.UTF_8);
+
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
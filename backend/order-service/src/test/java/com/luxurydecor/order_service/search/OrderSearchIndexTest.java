@@ -0,0 +1,139 @@
+package com.luxurydecor.order_service.search;
+
+import com.luxurydecor.order_service.repository.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+// Chỉ mục phải cho đúng các đơn và đúng thứ tự như findAllByKeyword:
+// lower(orderId) LIKE lower('%kw%') OR phoneNumber LIKE '%kw%', ORDER BY orderDate DESC, orderId DESC
+class OrderSearchIndexTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2026, 10, 1, 9, 0);
+    private static final List<String> KEYWORDS = List.of(
+            "ODA1B2C3", "oda1b2", "A1B", "0912", "0912345678", "345", "9", "09", "a", "Od", "zz", "XYZ99");
+
+    private OrderSearchIndex index;
+
+    private record Row(String orderId, String phoneNumber, LocalDateTime orderDate) {
+        Object[] toArray() {
+            return new Object[]{orderId, phoneNumber, orderDate};
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        index = new OrderSearchIndex(mock(OrderRepository.class), mock(TransactionTemplate.class));
+        ReflectionTestUtils.setField(index, "catchUpOverlapSeconds", 300L);
+    }
+
+    @Test
+    void matchesDatabaseQueryForIdsPhonesAndShortKeywords() {
+        List<Row> rows = sampleRows();
+        index.rebuildFrom(() -> sortedByDate(rows).stream().map(Row::toArray));
+
+        for (String keyword : KEYWORDS) {
+            assertSameAsDatabase(rows, keyword);
+        }
+    }
+
+    @Test
+    void catchUpAddsOrdersFromOtherInstancesWithoutDuplicates() {
+        List<Row> local = sampleRows();
+        index.rebuildFrom(() -> sortedByDate(local).stream().map(Row::toArray));
+
+        // Instance khác: 1 đơn mới hơn mốc, 1 đơn có orderDate cũ hơn mốc nhưng commit muộn
+        List<Row> all = new ArrayList<>(local);
+        Row newer = new Row("ODREMOTE01", "0912000111", BASE.plusHours(5));
+        Row lateCommit = new Row("ODREMOTE02", "0988777666", BASE.plusHours(3).minusMinutes(2));
+        all.add(newer);
+        all.add(lateCommit);
+        // Đơn đặt trên instance này, được afterCommit thêm vào trước khi lượt đọc bù chạy
+        Row localNew = new Row("ODLOCAL99", "0912999000", BASE.plusHours(4));
+        index.add(localNew.orderId(), localNew.phoneNumber(), localNew.orderDate());
+        all.add(localNew);
+
+        AtomicReference<LocalDateTime> requestedFrom = new AtomicReference<>();
+        index.catchUpFrom(from -> {
+            requestedFrom.set(from);
+            return sortedByDate(all).stream().filter(row -> !row.orderDate().isBefore(from)).map(Row::toArray);
+        });
+
+        // Mốc = đơn mới nhất lúc dựng (BASE + 3h), lùi lại 5 phút
+        assertThat(requestedFrom.get()).isEqualTo(BASE.plusHours(3).minusMinutes(5));
+        for (String keyword : KEYWORDS) {
+            assertSameAsDatabase(all, keyword);
+        }
+        assertSameAsDatabase(all, "remote");
+        assertSameAsDatabase(all, "");
+    }
+
+    @Test
+    void keysetPagesFollowDatabaseOrder() {
+        List<Row> rows = sampleRows();
+        index.rebuildFrom(() -> sortedByDate(rows).stream().map(Row::toArray));
+
+        List<String> expected = databaseQuery(rows, "0");
+        List<String> paged = new ArrayList<>();
+        LocalDateTime afterDate = null;
+        String afterId = null;
+        OrderSearchIndex.SearchPage page;
+        do {
+            page = index.searchAfter("0", afterDate, afterId, 3);
+            paged.addAll(page.orderIds());
+            if (!page.orderIds().isEmpty()) {
+                String last = page.orderIds().get(page.orderIds().size() - 1);
+                Row lastRow = rows.stream().filter(row -> row.orderId().equals(last)).findFirst().orElseThrow();
+                afterDate = lastRow.orderDate();
+                afterId = lastRow.orderId();
+            }
+        } while (page.orderIds().size() == 3);
+
+        assertThat(paged).isEqualTo(expected);
+    }
+
+    private void assertSameAsDatabase(List<Row> rows, String keyword) {
+        List<String> expected = databaseQuery(rows, keyword);
+        OrderSearchIndex.SearchPage page = index.search(keyword, 0, Integer.MAX_VALUE);
+        assertThat(page.orderIds()).as("keyword '%s'", keyword).isEqualTo(expected);
+        assertThat(page.total()).as("total '%s'", keyword).isEqualTo(expected.size());
+    }
+
+    // Bản Java của findAllByKeyword + Sort(orderDate DESC, orderId DESC)
+    private static List<String> databaseQuery(List<Row> rows, String keyword) {
+        String lower = keyword.toLowerCase(Locale.ROOT);
+        return rows.stream()
+                .filter(row -> keyword.isEmpty()
+                        || row.orderId().toLowerCase(Locale.ROOT).contains(lower)
+                        || (row.phoneNumber() != null && row.phoneNumber().contains(keyword)))
+                .sorted(Comparator.comparing(Row::orderDate).thenComparing(Row::orderId).reversed())
+                .map(Row::orderId)
+                .toList();
+    }
+
+    private static List<Row> sortedByDate(List<Row> rows) {
+        return rows.stream().sorted(Comparator.comparing(Row::orderDate).thenComparing(Row::orderId)).toList();
+    }
+
+    private static List<Row> sampleRows() {
+        return List.of(
+                new Row("ODA1B2C3", "0912345678", BASE),
+                new Row("ODa1b2c4", "0912345679", BASE.plusMinutes(10)),
+                new Row("ODX9Y8Z7", "0987654321", BASE.plusMinutes(20)),
+                new Row("ODXYZ990", "0345678912", BASE.plusMinutes(30)),
+                new Row("OD0000001", null, BASE.plusHours(1)),
+                new Row("ODQ9Q9Q9", "0900000009", BASE.plusHours(2)),
+                new Row("ODB3A1B2", "0123456789", BASE.plusHours(2)), // Trùng orderDate -> xếp theo orderId
+                new Row("ODZZTOP1", "0999999999", BASE.plusHours(3)));
+    }
+}
@@ -0,0 +1,103 @@
+package com.luxurydecor.order_service.service;
+
+import com.luxurydecor.order_service.client.ProductClientFallbackFactory.ProductServiceUnavailableException;
+import com.luxurydecor.order_service.entity.Order;
+import com.luxurydecor.order_service.enums.OrderStatus;
+import com.luxurydecor.order_service.repository.OrderRepository;
+import com.luxurydecor.order_service.repository.PaymentCallbackRepository;
+import feign.FeignException;
+import feign.Request;
+import feign.Response;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Chốt thanh toán khi product-service không chốt được kho, repository / service kho được mock
+class PaymentCallbackServiceTest {
+    private static final String ORDER_ID = "ODLATE";
+
+    private PaymentCallbackRepository paymentCallbackRepository;
+    private OrderRepository orderRepository;
+    private OrderStockService orderStockService;
+    private OrderStatsService orderStatsService;
+    private PaymentCallbackService service;
+    private Order order;
+
+    @BeforeEach
+    void setUp() {
+        paymentCallbackRepository = mock(PaymentCallbackRepository.class);
+        orderRepository = mock(OrderRepository.class);
+        orderStockService = mock(OrderStockService.class);
+        orderStatsService = mock(OrderStatsService.class);
+        service = new PaymentCallbackService(paymentCallbackRepository, orderRepository,
+                orderStockService, orderStatsService);
+
+        order = Order.builder()
+                .orderId(ORDER_ID)
+                .userId(1)
+                .orderDate(LocalDateTime.now().minusMinutes(30))
+                .status(OrderStatus.PENDING)
+                .paymentMethod("VNPAY")
+                .paymentStatus("UNPAID")
+                .totalMoney(150_000.0)
+                .build();
+        when(paymentCallbackRepository.claim(ORDER_ID, "14000001", "00")).thenReturn(1);
+        when(orderRepository.findById(ORDER_ID)).thenReturn(Optional.of(order));
+        when(orderRepository.transitionPayment(ORDER_ID, OrderStatus.PENDING, "UNPAID",
+                OrderStatus.CONFIRMED, "PAID")).thenReturn(1);
+    }
+
+    @Test
+    void latePaymentWithStockGoneCancelsOrderForRefund() {
+        // Giữ hàng đã hết hạn và kho không còn đủ -> product-service trả 400
+        doThrow(badRequest()).when(orderStockService).commit(order);
+
+        Map<String, Object> result = service.process(ORDER_ID, "14000001", "00");
+
+        assertThat(result).containsEntry("status", "refund").containsEntry("orderId", ORDER_ID);
+        verify(orderRepository).transitionPayment(ORDER_ID, OrderStatus.CONFIRMED, "PAID",
+                OrderStatus.CANCELLED, "UNPAID");
+        verify(orderRepository).markRefundRequired(ORDER_ID);
+        verify(orderStatsService).recordTransition(order, OrderStatus.PENDING, OrderStatus.CANCELLED);
+        // Kết quả được ghi vào sổ callback -> IPN / đối soát gọi lại sẽ nhận đúng kết quả này
+        verify(paymentCallbackRepository).recordResult(ORDER_ID, "14000001", "refund",
+                (String) result.get("message"));
+    }
+
+    @Test
+    void productServiceUnavailableIsRetried() {
+        doThrow(new ProductServiceUnavailableException(new RuntimeException("timeout")))
+                .when(orderStockService).commit(order);
+
+        assertThatThrownBy(() -> service.process(ORDER_ID, "14000001", "00"))
+                .isInstanceOf(ProductServiceUnavailableException.class);
+        verify(orderRepository, never()).markRefundRequired(any());
+        verify(orderStatsService, never()).recordTransition(any(), any(), any());
+    }
+
+    private static FeignException badRequest() {
+        Request request = Request.create(Request.HttpMethod.PUT, "/reservations/" + ORDER_ID + "/commit",
+                Map.of(), null, StandardCharsets.UTF_8, null);
+        Response response = Response.builder()
+                .status(400)
+                .reason("Bad Request")
+                .request(request)
+                .headers(Map.of())
+                .body("{\"message\":\"không còn đủ hàng trong kho\"}", StandardCharsets.UTF_8)
+                .build();
+        return FeignException.errorStatus("ProductClient#commitReservation(String)", response);
+    }
+}
@@ -0,0 +1,133 @@
+package com.luxurydecor.order_service.service;
+
+import com.luxurydecor.order_service.entity.Order;
+import com.luxurydecor.order_service.enums.OrderStatus;
+import com.luxurydecor.order_service.payment.VnPayQueryClient;
+import com.luxurydecor.order_service.payment.VnPaySigner;
+import com.luxurydecor.order_service.payment.VnPayStubServer;
+import com.luxurydecor.order_service.repository.OrderRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Đối soát 1 lô đơn VNPAY với API querydr giả (stub server), repository / callback service được mock
+class VnPayReconcilerTest {
+    private static final String SECRET = "TESTSECRET0123456789";
+
+    private VnPayStubServer stub;
+    private OrderRepository orderRepository;
+    private PaymentCallbackService paymentCallbackService;
+    private VnPayReconciler reconciler;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        VnPaySigner signer = new VnPaySigner(SECRET);
+        stub = new VnPayStubServer(signer);
+        stub.start();
+
+        orderRepository = mock(OrderRepository.class);
+        paymentCallbackService = mock(PaymentCallbackService.class);
+        reconciler = new VnPayReconciler(orderRepository,
+                new VnPayQueryClient(signer, stub.url(), "TESTTMN", 2000),
+                paymentCallbackService);
+        ReflectionTestUtils.setField(reconciler, "batchSize", 100);
+        ReflectionTestUtils.setField(reconciler, "concurrency", 4);
+        ReflectionTestUtils.setField(reconciler, "minAgeMinutes", 2L);
+        ReflectionTestUtils.setField(reconciler, "expireAfterMinutes", 17L);
+        ReflectionTestUtils.setField(reconciler, "maxAgeHours", 72L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        stub.stop();
+    }
+
+    @Test
+    void appliesQueryResultsForWholeBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        Order paid = order("ODPAID", now.minusMinutes(10), vnpDate(now.minusMinutes(9)), 150_000.0);
+        Order failed = order("ODFAIL", now.minusMinutes(10), vnpDate(now.minusMinutes(9)), 90_000.0);
+        Order inProgress = order("ODWAIT", now.minusMinutes(10), vnpDate(now.minusMinutes(9)), 50_000.0);
+        Order abandoned = order("ODGONE", now.minusHours(2), vnpDate(now.minusHours(2)), 70_000.0);
+        Order neverLinked = order("ODNOLINK", now.minusHours(2), null, 70_000.0);
+        // Đặt 20 phút trước nhưng link mới tạo 5 phút trước -> link vẫn còn hạn
+        Order lateLink = order("ODLATELINK", now.minusMinutes(20), vnpDate(now.minusMinutes(5)), 60_000.0);
+        Order freshNoLink = order("ODNEW", now.minusMinutes(5), null, 40_000.0);
+        when(orderRepository.findPendingVnPayOrders(eq(OrderStatus.PENDING), any(), any(), any()))
+                .thenReturn(List.of(paid, failed, inProgress, abandoned, neverLinked, lateLink, freshNoLink));
+
+        stub.transaction("ODPAID", "00", "14000001", 150_000_00L);
+        stub.transaction("ODFAIL", "02", "14000002", 90_000_00L);
+        stub.transaction("ODWAIT", "01", "14000003", 50_000_00L);
+
+        Map<String, Integer> summary = reconciler.reconcile();
+
+        assertThat(summary).containsEntry("checked", 7)
+                .containsEntry("paid", 1)
+                .containsEntry("failed", 1)
+                .containsEntry("waiting", 3)
+                .containsEntry("expired", 2)
+                .containsEntry("error", 0);
+        // Đơn chưa tạo link thanh toán thì không gọi querydr
+        assertThat(stub.requestCount()).isEqualTo(5);
+
+        verify(paymentCallbackService).process("ODPAID", "14000001", "00");
+        verify(paymentCallbackService).process("ODFAIL", "14000002", "02");
+        verify(paymentCallbackService).process("ODGONE", "", "EXPIRED");
+        // ... nhưng quá hạn thì vẫn bị hủy như đơn chưa thanh toán
+        verify(paymentCallbackService).process("ODNOLINK", "", "EXPIRED");
+        verify(paymentCallbackService, never()).process(eq("ODNEW"), anyString(), anyString());
+        verify(paymentCallbackService, never()).process(eq("ODLATELINK"), anyString(), anyString());
+        verify(paymentCallbackService, never()).process(eq("ODWAIT"), anyString(), anyString());
+    }
+
+    @Test
+    void doesNotConfirmWhenAmountDiffers() {
+        Order order = order("ODAMOUNT", LocalDateTime.now().minusMinutes(10), "20260101120000", 150_000.0);
+        when(orderRepository.findPendingVnPayOrders(eq(OrderStatus.PENDING), any(), any(), any()))
+                .thenReturn(List.of(order));
+        stub.transaction("ODAMOUNT", "00", "14000009", 1_000L);
+
+        Map<String, Integer> summary = reconciler.reconcile();
+
+        assertThat(summary).containsEntry("error", 1).containsEntry("paid", 0);
+        verify(paymentCallbackService, never()).process(anyString(), anyString(), anyString());
+    }
+
+    // vnp_CreateDate như PaymentService sinh ra (yyyyMMddHHmmss, múi giờ Etc/GMT+7)
+    private static String vnpDate(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault())
+                .withZoneSameInstant(ZoneId.of("Etc/GMT+7"))
+                .format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
+    }
+
+    private static Order order(String orderId, LocalDateTime orderDate, String vnpCreateDate, double totalMoney) {
+        return Order.builder()
+                .orderId(orderId)
+                .userId(1)
+                .orderDate(orderDate)
+                .status(OrderStatus.PENDING)
+                .paymentMethod("VNPAY")
+                .paymentStatus("UNPAID")
+                .vnpCreateDate(vnpCreateDate)
+                .totalMoney(totalMoney)
+                .build();
+    }
+}
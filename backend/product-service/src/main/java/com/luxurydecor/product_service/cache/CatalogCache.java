@@ -0,0 +1,123 @@
+package com.luxurydecor.product_service.cache;
+
+import com.luxurydecor.product_service.dto.ProductResponse;
+import com.luxurydecor.product_service.entity.Category;
+import com.luxurydecor.product_service.event.ProductChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Cache đọc-xuyên (read-through) cho dữ liệu trang chủ: danh mục và sản phẩm nổi bật
+// - Dữ liệu chỉ đổi khi admin sửa catalog nên bị xóa ngay tại lúc ghi
+// - Sản phẩm nổi bật có kèm tồn kho: bị xóa khi 1 trong các sản phẩm đó đổi tồn kho
+// - TTL chỉ là lưới an toàn, không phải cơ chế làm mới chính
+@Component
+public class CatalogCache {
+    private final Slot<List<Category>> categories;
+    private final Slot<List<ProductResponse>> featuredProducts;
+
+    public CatalogCache(@Value("${catalog.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.categories = new Slot<>(ttlSeconds * 1000);
+        this.featuredProducts = new Slot<>(ttlSeconds * 1000);
+    }
+
+    public List<Category> getCategories(Supplier<List<Category>> loader) {
+        return categories.get(() -> List.copyOf(loader.get()));
+    }
+
+    public List<ProductResponse> getFeaturedProducts(Supplier<List<ProductResponse>> loader) {
+        return featuredProducts.get(() -> List.copyOf(loader.get()));
+    }
+
+    public void invalidateCategories() {
+        categories.invalidate();
+    }
+
+    public void invalidateFeaturedProducts() {
+        featuredProducts.invalidate();
+    }
+
+    // Tồn kho / giá của sản phẩm thay đổi -> chỉ xóa nếu sản phẩm đó đang nằm trong danh sách nổi bật
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        List<ProductResponse> cached = featuredProducts.peek();
+        if (cached != null && cached.stream().anyMatch(p -> event.getProductIds().contains(p.getProductId()))) {
+            featuredProducts.invalidate();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("categories", categories.getStats());
+        stats.put("featured_products", featuredProducts.getStats());
+        return stats;
+    }
+
+    private static final class Slot<T> {
+        private final long ttlMillis;
+        private T value;
+        private long expiresAt;
+        // Tăng mỗi lần invalidate, tránh ghi đè dữ liệu cũ được load trước lúc invalidate
+        private long version;
+
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder invalidations = new LongAdder();
+
+        private Slot(long ttlMillis) {
+            this.ttlMillis = ttlMillis;
+        }
+
+        T get(Supplier<T> loader) {
+            long loadVersion;
+            synchronized (this) {
+                if (value != null && expiresAt > System.currentTimeMillis()) {
+                    hits.increment();
+                    return value;
+                }
+                misses.increment();
+                loadVersion = version;
+            }
+
+            // Query DB ngoài khóa để không chặn các request khác
+            T loaded = loader.get();
+            synchronized (this) {
+                if (version == loadVersion) {
+                    value = loaded;
+                    expiresAt = System.currentTimeMillis() + ttlMillis;
+                }
+            }
+            return loaded;
+        }
+
+        synchronized T peek() {
+            return value;
+        }
+
+        synchronized void invalidate() {
+            value = null;
+            version++;
+            invalidations.increment();
+        }
+
+        Map<String, Object> getStats() {
+            long hitCount = hits.sum();
+            long missCount = misses.sum();
+            long total = hitCount + missCount;
+
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("hits", hitCount);
+            stats.put("misses", missCount);
+            stats.put("hit_ratio", total == 0 ? 0.0 : (double) hitCount / total);
+            stats.put("invalidations", invalidations.sum());
+            return stats;
+        }
+    }
+}
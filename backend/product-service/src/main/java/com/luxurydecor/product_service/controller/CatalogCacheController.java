@@ -0,0 +1,21 @@
+package com.luxurydecor.product_service.controller;
+
+import com.luxurydecor.product_service.cache.CatalogCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/internal/catalog-cache")
+@RequiredArgsConstructor
+public class CatalogCacheController {
+    private final CatalogCache catalogCache;
+
+    // Thống kê hit / miss của cache danh mục và sản phẩm nổi bật
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        return ResponseEntity.ok(catalogCache.getStats());
+    }
+}
@@ -1,11 +1,15 @@
 package com.luxurydecor.product_service.controller;
 
 import com.luxurydecor.product_service.dto.CategoryRequest;
+import com.luxurydecor.product_service.dto.CursorPageResponse;
+import com.luxurydecor.product_service.dto.FacetedProductResponse;
 import com.luxurydecor.product_service.dto.ProductQuantityRequest;
 import com.luxurydecor.product_service.dto.ProductRequest;
 import com.luxurydecor.product_service.dto.ProductResponse;
+import com.luxurydecor.product_service.dto.ReserveStockRequest;
 import com.luxurydecor.product_service.entity.Category;
 import com.luxurydecor.product_service.service.ProductService;
+import com.luxurydecor.product_service.service.StockReservationService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -23,6 +27,7 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class ProductController {
     private final ProductService productService;
+    private final StockReservationService stockReservationService;
 
     // === CATEGORY APIs ===
     // CREATE CATEGORY
@@ -65,11 +70,31 @@ public class ProductController {
         return ResponseEntity.ok(productService.getAllProducts(page, size, sortBy));
     }
 
+    // READ PRODUCT KIỂU CUỘN VÔ HẠN (dùng cursor thay cho số trang)
+    // URL: GET /api/products/scroll?size=18&categoryId=1&cursor=...
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPageResponse<ProductResponse>> scrollProducts(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "18") int size,
+            @RequestParam(required = false) Integer categoryId,
+            @RequestParam(required = false) Long minPrice,
+            @RequestParam(required = false) Long maxPrice,
+            @RequestParam(defaultValue = "false") boolean withTotal
+    ) {
+        return ResponseEntity.ok(productService.scrollProducts(cursor, size, categoryId, minPrice, maxPrice, withTotal));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ProductResponse> getProductById(@PathVariable Integer id) {
         return ResponseEntity.ok(productService.getProductById(id));
     }
 
+    // READ NHIỀU SẢN PHẨM 1 LẦN (dùng cho order-service, tránh gọi từng id)
+    @PostMapping("/batch")
+    public ResponseEntity<List<ProductResponse>> getProductsByIds(@RequestBody List<Integer> ids) {
+        return ResponseEntity.ok(productService.getProductsByIds(ids));
+    }
+
     // UPDATE PRODUCT
     @PutMapping("/{id}")
     public ResponseEntity<ProductResponse> updateProduct(
@@ -120,6 +145,19 @@ public class ProductController {
         return ResponseEntity.ok(productService.filterProducts(minPrice, maxPrice, categoryId, page, size, sortBy));
     }
 
+    // FILTER + FACET (trang sản phẩm kèm số lượng theo danh mục / khoảng giá)
+    @GetMapping("/facets")
+    public ResponseEntity<FacetedProductResponse> filterProductsWithFacets(
+            @RequestParam(required = false) Long minPrice,
+            @RequestParam(required = false) Long maxPrice,
+            @RequestParam(required = false) Integer categoryId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "18") int size,
+            @RequestParam(defaultValue = "newest") String sortBy
+    ) {
+        return ResponseEntity.ok(productService.filterProductsWithFacets(minPrice, maxPrice, categoryId, page, size, sortBy));
+    }
+
     @GetMapping("/featured")
     public ResponseEntity<List<ProductResponse>> getFeaturedProducts() {
         return ResponseEntity.ok(productService.getFeaturedProducts());
@@ -137,6 +175,24 @@ public class ProductController {
         return ResponseEntity.ok().build();
     }
 
+    // === GIỮ HÀNG (order-service gọi) ===
+    @PostMapping("/reservations")
+    public ResponseEntity<Void> reserveStock(@RequestBody ReserveStockRequest request) {
+        stockReservationService.reserve(request);
+        return ResponseEntity.ok().build();
+    }
+
+    @PutMapping("/reservations/{orderId}/commit")
+    public ResponseEntity<Void> commitReservation(@PathVariable String orderId) {
+        stockReservationService.commit(orderId);
+        return ResponseEntity.ok().build();
+    }
+
+    @PutMapping("/reservations/{orderId}/release")
+    public ResponseEntity<Boolean> releaseReservation(@PathVariable String orderId) {
+        return ResponseEntity.ok(stockReservationService.release(orderId));
+    }
+
     // Thống kê sản phẩm
     @GetMapping("/stats")
     public ResponseEntity<Map<String, Object>> getStats() {
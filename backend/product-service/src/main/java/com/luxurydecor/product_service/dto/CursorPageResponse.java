@@ -0,0 +1,19 @@
+package com.luxurydecor.product_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageResponse<T> {
+    private List<T> content;
+    private String nextCursor; // null khi đã hết dữ liệu
+    private boolean hasNext;
+    private Long totalElements; // Chỉ có khi client yêu cầu withTotal=true
+}
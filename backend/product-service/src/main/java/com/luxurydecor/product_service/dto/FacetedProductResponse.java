@@ -0,0 +1,31 @@
+package com.luxurydecor.product_service.dto;
+
+import lombok.Builder;
+import lombok.Data;
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+
+@Data
+@Builder
+public class FacetedProductResponse {
+    private Page<ProductResponse> products;
+    private List<CategoryFacet> categories;
+    private List<PriceBucket> priceBuckets;
+
+    @Data
+    @Builder
+    public static class CategoryFacet {
+        private Integer categoryId;
+        private String categoryName;
+        private long count;
+    }
+
+    @Data
+    @Builder
+    public static class PriceBucket {
+        private long from;
+        private Long to; // null = không giới hạn trên
+        private long count;
+    }
+}
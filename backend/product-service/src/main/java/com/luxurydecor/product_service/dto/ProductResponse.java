@@ -13,6 +13,7 @@ public class ProductResponse {
     private String image;
     private String description;
     private Integer stockQuantity;
+    private Integer availableQuantity; // Tồn kho trừ phần đang giữ cho đơn chưa chốt
     private Integer quantitySold;
     private Integer categoryId;
     private String categoryName;
@@ -0,0 +1,12 @@
+package com.luxurydecor.product_service.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ReserveStockRequest {
+    private String orderId;
+    private Integer ttlMinutes; // Thời gian giữ hàng, hết hạn sẽ tự trả lại kho
+    private List<ProductQuantityRequest> items;
+}
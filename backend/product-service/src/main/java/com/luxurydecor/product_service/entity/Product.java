@@ -9,14 +9,23 @@ import org.springframework.data.domain.Persistable;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "products", schema = "product_schema")
+@Table(name = "products", schema = "product_schema", indexes = {
+        // Phục vụ phân trang keyset theo (createdAt, productId)
+        @Index(name = "idx_products_created_at_id", columnList = "created_at, product_id"),
+        @Index(name = "idx_products_category_created_at", columnList = "category_id, created_at, product_id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class Product implements Persistable<Integer> {
+    // Cấp id theo khối (hi-lo): mỗi lần gọi sequence lấy 50 id, các id trong khối cấp trong bộ nhớ
+    // Bắt đầu từ 1.000.000 để không trùng các id ngẫu nhiên 6 chữ số đã có
     @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_id_gen")
+    @SequenceGenerator(name = "product_id_gen", sequenceName = "product_id_seq", schema = "product_schema",
+            initialValue = 1_000_000, allocationSize = 50)
     @Column(name = "product_id")
     private Integer productId;
 
@@ -37,6 +46,10 @@ public class Product implements Persistable<Integer> {
     @Column(name = "quantity_sold")
     private Integer quantitySold;
 
+    // Số lượng đang được giữ cho các đơn chưa thanh toán / chưa xác nhận
+    @Column(name = "reserved_quantity")
+    private Integer reservedQuantity;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
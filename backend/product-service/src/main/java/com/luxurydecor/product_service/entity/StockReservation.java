@@ -0,0 +1,54 @@
+package com.luxurydecor.product_service.entity;
+
+import com.luxurydecor.product_service.enums.ReservationStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Mỗi dòng = 1 sản phẩm được giữ cho 1 đơn hàng
+@Entity
+@Table(name = "stock_reservations", schema = "product_schema",
+        indexes = {
+                @Index(name = "idx_reservation_order", columnList = "order_id"),
+                @Index(name = "idx_reservation_status_expires", columnList = "status, expires_at")
+        },
+        // Mỗi đơn chỉ giữ 1 dòng cho mỗi sản phẩm (chặn giữ hàng trùng khi retry chạy song song)
+        uniqueConstraints = @UniqueConstraint(name = "uk_reservation_order_product",
+                columnNames = {"order_id", "product_id"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockReservation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "reservation_id")
+    private Long reservationId;
+
+    @Column(name = "order_id", nullable = false)
+    private String orderId;
+
+    @Column(name = "product_id", nullable = false)
+    private Integer productId;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ReservationStatus status;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (status == null) status = ReservationStatus.ACTIVE;
+    }
+}
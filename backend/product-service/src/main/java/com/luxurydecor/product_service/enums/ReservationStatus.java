@@ -0,0 +1,7 @@
+package com.luxurydecor.product_service.enums;
+
+public enum ReservationStatus {
+    ACTIVE,     // Đang giữ hàng, chưa trừ kho
+    COMMITTED,  // Đã thanh toán / xác nhận -> đã trừ kho thật
+    RELEASED    // Đã trả lại (hủy đơn, thanh toán lỗi, hết hạn)
+}
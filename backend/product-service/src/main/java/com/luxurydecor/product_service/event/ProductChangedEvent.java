@@ -0,0 +1,14 @@
+package com.luxurydecor.product_service.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+// Bắn ra mỗi khi sản phẩm thay đổi (giá, tồn kho, bị xóa...)
+// để các cache / index phía sau tự làm mới
+@Getter
+@AllArgsConstructor
+public class ProductChangedEvent {
+    private final List<Integer> productIds;
+}
@@ -0,0 +1,27 @@
+package com.luxurydecor.product_service.pagination;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+// Con trỏ phân trang kiểu keyset: vị trí (createdAt, productId) của bản ghi cuối trang trước
+// Được mã hóa base64 để client chỉ việc gửi lại, không cần hiểu nội dung
+public record KeysetCursor(LocalDateTime createdAt, Integer productId) {
+
+    public String encode() {
+        String raw = createdAt + "|" + productId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new KeysetCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    Integer.valueOf(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Cursor không hợp lệ");
+        }
+    }
+}
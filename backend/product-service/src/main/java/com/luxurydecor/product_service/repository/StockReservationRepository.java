@@ -0,0 +1,36 @@
+package com.luxurydecor.product_service.repository;
+
+import com.luxurydecor.product_service.entity.StockReservation;
+import com.luxurydecor.product_service.enums.ReservationStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+    boolean existsByOrderId(String orderId);
+
+    // Khóa advisory theo orderId, tự nhả khi transaction kết thúc
+    @Query(value = "SELECT 1 FROM (SELECT pg_advisory_xact_lock(hashtext(:orderId))) l", nativeQuery = true)
+    int lockOrder(@Param("orderId") String orderId);
+
+    // Khóa các dòng giữ hàng của đơn để commit / release không chạy chồng lên nhau
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM StockReservation r WHERE r.orderId = :orderId AND r.status IN :statuses")
+    List<StockReservation> lockByOrderId(@Param("orderId") String orderId,
+                                         @Param("statuses") List<ReservationStatus> statuses);
+
+    // Lấy 1 lô giữ hàng đã hết hạn (dùng index status + expires_at)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM StockReservation r WHERE r.status = :status AND r.expiresAt < :now ORDER BY r.expiresAt")
+    List<StockReservation> lockExpired(@Param("status") ReservationStatus status,
+                                       @Param("now") LocalDateTime now,
+                                       Pageable pageable);
+}
@@ -0,0 +1,140 @@
+package com.luxurydecor.product_service.search;
+
+import com.luxurydecor.product_service.dto.FacetedProductResponse;
+import com.luxurydecor.product_service.entity.Category;
+import com.luxurydecor.product_service.entity.Product;
+import com.luxurydecor.product_service.repository.CategoryRepository;
+import com.luxurydecor.product_service.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Chỉ mục facet trong bộ nhớ: số sản phẩm theo danh mục và theo khoảng giá
+// - Mỗi danh mục giữ 1 mảng giá đã sắp xếp, đếm bằng tìm kiếm nhị phân (không GROUP BY)
+// - Được dựng lại khi sản phẩm / danh mục thay đổi (ghi ít, đọc nhiều)
+@Component
+public class ProductFacetIndex {
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final long[] bucketBounds;
+
+    // productId -> (categoryId, price)
+    private final Map<Integer, long[]> products = new ConcurrentHashMap<>();
+    private final Map<Integer, String> categoryNames = new ConcurrentHashMap<>();
+
+    // Ảnh chụp bất biến để các request đọc không cần khóa
+    private volatile Map<Integer, long[]> pricesByCategory = Map.of();
+
+    public ProductFacetIndex(ProductRepository productRepository,
+                             CategoryRepository categoryRepository,
+                             @Value("${product.facet.price-buckets:0,1000000,5000000,10000000,20000000,50000000}") long[] bucketBounds) {
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.bucketBounds = bucketBounds.clone();
+        Arrays.sort(this.bucketBounds);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        products.clear();
+        categoryNames.clear();
+        categoryRepository.findAll().forEach(c -> categoryNames.put(c.getCategoryId(), c.getCategoryName()));
+        productRepository.findAll().forEach(this::put);
+        refreshSnapshot();
+    }
+
+    public synchronized void index(Product product) {
+        put(product);
+        refreshSnapshot();
+    }
+
+    public synchronized void remove(Integer productId) {
+        if (products.remove(productId) != null) {
+            refreshSnapshot();
+        }
+    }
+
+    public void indexCategory(Category category) {
+        categoryNames.put(category.getCategoryId(), category.getCategoryName());
+    }
+
+    // Đếm theo danh mục: áp dụng lọc giá, bỏ qua lọc danh mục (để người dùng thấy các lựa chọn khác)
+    public List<FacetedProductResponse.CategoryFacet> categoryFacets(Long minPrice, Long maxPrice) {
+        Map<Integer, long[]> snapshot = pricesByCategory;
+        List<FacetedProductResponse.CategoryFacet> facets = new ArrayList<>();
+        categoryNames.forEach((categoryId, categoryName) -> facets.add(FacetedProductResponse.CategoryFacet.builder()
+                .categoryId(categoryId)
+                .categoryName(categoryName)
+                .count(countInRange(snapshot.get(categoryId), minPrice, maxPrice))
+                .build()));
+        facets.sort(Comparator.comparing(FacetedProductResponse.CategoryFacet::getCategoryId));
+        return facets;
+    }
+
+    // Đếm theo khoảng giá: áp dụng lọc danh mục, bỏ qua lọc giá
+    public List<FacetedProductResponse.PriceBucket> priceBuckets(Integer categoryId) {
+        Map<Integer, long[]> snapshot = pricesByCategory;
+        List<long[]> sources = categoryId != null
+                ? Collections.singletonList(snapshot.get(categoryId))
+                : new ArrayList<>(snapshot.values());
+
+        List<FacetedProductResponse.PriceBucket> buckets = new ArrayList<>();
+        for (int i = 0; i < bucketBounds.length; i++) {
+            long from = bucketBounds[i];
+            Long to = i + 1 < bucketBounds.length ? bucketBounds[i + 1] : null; // Khoảng cuối không có cận trên
+            long count = 0;
+            for (long[] prices : sources) {
+                count += countInRange(prices, from, to == null ? null : to - 1);
+            }
+            buckets.add(FacetedProductResponse.PriceBucket.builder().from(from).to(to).count(count).build());
+        }
+        return buckets;
+    }
+
+    private void put(Product product) {
+        Integer categoryId = product.getCategory() == null ? null : product.getCategory().getCategoryId();
+        long price = product.getPrice() == null ? 0 : product.getPrice();
+        products.put(product.getProductId(), new long[]{categoryId == null ? -1 : categoryId, price});
+    }
+
+    private void refreshSnapshot() {
+        Map<Integer, List<Long>> grouped = new HashMap<>();
+        for (long[] entry : products.values()) {
+            grouped.computeIfAbsent((int) entry[0], k -> new ArrayList<>()).add(entry[1]);
+        }
+        Map<Integer, long[]> next = new HashMap<>();
+        grouped.forEach((categoryId, prices) -> {
+            long[] sorted = prices.stream().mapToLong(Long::longValue).sorted().toArray();
+            next.put(categoryId, sorted);
+        });
+        pricesByCategory = next;
+    }
+
+    // Số phần tử trong [min, max] của mảng đã sắp xếp
+    private static long countInRange(long[] sortedPrices, Long min, Long max) {
+        if (sortedPrices == null || sortedPrices.length == 0) {
+            return 0;
+        }
+        int from = min == null ? 0 : lowerBound(sortedPrices, min);
+        int to = max == null ? sortedPrices.length : lowerBound(sortedPrices, max == Long.MAX_VALUE ? max : max + 1);
+        return Math.max(to - from, 0);
+    }
+
+    // Vị trí đầu tiên có giá >= value
+    private static int lowerBound(long[] sorted, long value) {
+        int low = 0, high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,206 @@
+package com.luxurydecor.product_service.search;
+
+import com.luxurydecor.product_service.entity.Product;
+import com.luxurydecor.product_service.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+// Chỉ mục đảo (inverted index) trong bộ nhớ cho tìm kiếm sản phẩm
+// - Bỏ dấu tiếng Việt khi index và khi tìm ("ghe" tìm được "Ghế")
+// - Hỗ trợ tìm theo tiền tố ("so" tìm được "Sofa")
+// - Xếp hạng: khớp tên > khớp mô tả, khớp nguyên từ > khớp tiền tố
+// - Được cập nhật ngay khi tạo / sửa / xóa sản phẩm
+@Component
+@RequiredArgsConstructor
+public class ProductSearchIndex {
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final ProductRepository productRepository;
+
+    // Chỉ mục đang phục vụ tìm kiếm; rebuild dựng 1 bản mới rồi thay vào, không xóa tại chỗ
+    private volatile Segment current = new Segment();
+    // Khác null khi đang rebuild: các thay đổi trong lúc đọc DB, phát lại lên bản mới trước khi thay
+    private List<Object> pending = null;
+
+    private record IndexedProduct(Integer productId, Set<String> nameTerms, Set<String> descriptionTerms,
+                                  long price, long createdAt) {
+    }
+
+    public record SearchHit(Integer productId, double score, long price, long createdAt) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (this) {
+            pending = new ArrayList<>();
+        }
+        Segment built = new Segment();
+        try {
+            productRepository.findAll().forEach(built::add);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                pending = null;
+            }
+            throw e;
+        }
+
+        synchronized (this) {
+            // Sản phẩm được sửa / xóa trong lúc đọc DB: áp lại (add / remove đều idempotent)
+            for (Object change : pending) {
+                if (change instanceof Product product) {
+                    built.add(product);
+                } else {
+                    built.remove((Integer) change);
+                }
+            }
+            pending = null;
+            current = built;
+        }
+        System.out.println("Đã dựng chỉ mục tìm kiếm cho " + built.documents.size() + " sản phẩm");
+    }
+
+    public synchronized void index(Product product) {
+        current.add(product);
+        if (pending != null) {
+            pending.add(product);
+        }
+    }
+
+    public synchronized void remove(Integer productId) {
+        current.remove(productId);
+        if (pending != null) {
+            pending.add(productId);
+        }
+    }
+
+    // Trả về toàn bộ sản phẩm khớp TẤT CẢ các từ trong keyword (chưa sắp xếp)
+    public List<SearchHit> search(String keyword) {
+        Set<String> queryTerms = tokenize(keyword);
+        if (queryTerms.isEmpty()) {
+            return List.of();
+        }
+        Segment segment = current;
+        ConcurrentSkipListMap<String, Set<Integer>> postings = segment.postings;
+        Map<Integer, IndexedProduct> documents = segment.documents;
+
+        Map<Integer, Double> scores = null;
+        for (String term : queryTerms) {
+            // Tất cả productId có term bắt đầu bằng từ khóa
+            Set<Integer> matched = new HashSet<>();
+            for (Set<Integer> ids : postings.subMap(term, true, term + Character.MAX_VALUE, true).values()) {
+                matched.addAll(ids);
+            }
+
+            Map<Integer, Double> next = new HashMap<>();
+            for (Integer productId : matched) {
+                if (scores != null && !scores.containsKey(productId)) {
+                    continue; // Không khớp các từ trước -> loại
+                }
+                IndexedProduct document = documents.get(productId);
+                if (document == null) {
+                    continue;
+                }
+                double previous = scores == null ? 0 : scores.get(productId);
+                next.put(productId, previous + termScore(document, term));
+            }
+            scores = next;
+            if (scores.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        List<SearchHit> hits = new ArrayList<>(scores.size());
+        scores.forEach((productId, score) -> {
+            IndexedProduct document = documents.get(productId);
+            if (document != null) {
+                hits.add(new SearchHit(productId, score, document.price(), document.createdAt()));
+            }
+        });
+        return hits;
+    }
+
+    // term -> danh sách productId chứa term (sắp xếp theo term để duyệt tiền tố) + thông tin từng sản phẩm
+    private static final class Segment {
+        private final ConcurrentSkipListMap<String, Set<Integer>> postings = new ConcurrentSkipListMap<>();
+        private final Map<Integer, IndexedProduct> documents = new ConcurrentHashMap<>();
+
+        void add(Product product) {
+            remove(product.getProductId());
+
+            IndexedProduct document = new IndexedProduct(
+                    product.getProductId(),
+                    tokenize(product.getProductName()),
+                    tokenize(product.getDescription()),
+                    product.getPrice() == null ? 0 : product.getPrice(),
+                    product.getCreatedAt() == null ? 0 : product.getCreatedAt().toEpochSecond(ZoneOffset.UTC));
+            documents.put(document.productId(), document);
+
+            Set<String> terms = new HashSet<>(document.nameTerms());
+            terms.addAll(document.descriptionTerms());
+            for (String term : terms) {
+                postings.computeIfAbsent(term, key -> ConcurrentHashMap.newKeySet()).add(document.productId());
+            }
+        }
+
+        void remove(Integer productId) {
+            IndexedProduct old = documents.remove(productId);
+            if (old == null) {
+                return;
+            }
+            Set<String> terms = new HashSet<>(old.nameTerms());
+            terms.addAll(old.descriptionTerms());
+            for (String term : terms) {
+                Set<Integer> ids = postings.get(term);
+                if (ids != null) {
+                    ids.remove(productId);
+                    if (ids.isEmpty()) {
+                        postings.remove(term);
+                    }
+                }
+            }
+        }
+    }
+
+    private double termScore(IndexedProduct document, String term) {
+        if (document.nameTerms().contains(term)) return 4;
+        if (hasPrefix(document.nameTerms(), term)) return 3;
+        if (document.descriptionTerms().contains(term)) return 2;
+        return 1; // Tiền tố trong mô tả
+    }
+
+    private boolean hasPrefix(Set<String> terms, String prefix) {
+        for (String term : terms) {
+            if (term.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Chữ thường + bỏ dấu tiếng Việt + tách từ
+    static Set<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return Set.of();
+        }
+        String normalized = Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        normalized = DIACRITICS.matcher(normalized).replaceAll("").replace('đ', 'd');
+
+        Set<String> terms = new LinkedHashSet<>();
+        for (String token : NON_WORD.split(normalized)) {
+            if (!token.isEmpty()) {
+                terms.add(token);
+            }
+        }
+        return terms;
+    }
+}
@@ -0,0 +1,47 @@
+package com.luxurydecor.product_service.service;
+
+import com.luxurydecor.product_service.event.ProductChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+
+// Báo cho order-service xóa cache sản phẩm sau khi thay đổi đã commit
+@Component
+public class ProductCacheInvalidator {
+    private final RestClient restClient;
+
+    public ProductCacheInvalidator(@Value("${order-service.url:http://localhost:8083}") String orderServiceUrl,
+                                   @Value("${order-service.api-key}") String apiKey) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(Duration.ofSeconds(1));
+        requestFactory.setReadTimeout(Duration.ofSeconds(2));
+        this.restClient = RestClient.builder()
+                .baseUrl(orderServiceUrl)
+                // Endpoint xóa cache của order-service chỉ nhận lệnh gọi có khóa nội bộ
+                .defaultHeader("X-Internal-Api-Key", apiKey)
+                .requestFactory(requestFactory)
+                .build();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        // Gọi trên virtual thread để không làm chậm request hiện tại
+        // Gọi lỗi cũng không sao: cache bên order-service tự hết hạn theo TTL
+        Thread.startVirtualThread(() -> {
+            try {
+                restClient.post()
+                        .uri("/api/internal/product-cache/evict")
+                        .body(event.getProductIds())
+                        .retrieve()
+                        .toBodilessEntity();
+            } catch (Exception e) {
+                System.out.println("Không thể xóa cache sản phẩm bên order-service: " + e.getMessage());
+            }
+        });
+    }
+}
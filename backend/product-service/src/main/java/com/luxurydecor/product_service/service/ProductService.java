@@ -2,37 +2,58 @@ package com.luxurydecor.product_service.service;
 
 import com.cloudinary.Cloudinary;
 import com.cloudinary.utils.ObjectUtils;
+import com.luxurydecor.product_service.cache.CatalogCache;
 import com.luxurydecor.product_service.dto.CategoryRequest;
+import com.luxurydecor.product_service.dto.CursorPageResponse;
+import com.luxurydecor.product_service.dto.FacetedProductResponse;
 import com.luxurydecor.product_service.dto.ProductQuantityRequest;
 import com.luxurydecor.product_service.dto.ProductRequest;
 import com.luxurydecor.product_service.dto.ProductResponse;
 import com.luxurydecor.product_service.entity.Category;
 import com.luxurydecor.product_service.entity.Product;
+import com.luxurydecor.product_service.event.ProductChangedEvent;
+import com.luxurydecor.product_service.pagination.KeysetCursor;
 import com.luxurydecor.product_service.repository.CategoryRepository;
 import com.luxurydecor.product_service.repository.ProductRepository;
+import com.luxurydecor.product_service.search.ProductFacetIndex;
+import com.luxurydecor.product_service.search.ProductSearchIndex;
+import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ProductService {
+    // Số bản ghi tối đa mỗi trang cuộn
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
     private final Cloudinary cloudinary;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StockEngine stockEngine;
+    private final ProductSearchIndex searchIndex;
+    private final ProductFacetIndex facetIndex;
+    private final CatalogCache catalogCache;
 
     // --- CATEGORY ---
     public Category createCategory(CategoryRequest request) {
@@ -42,21 +63,14 @@ public class ProductService {
         Category category = Category.builder()
                 .categoryName(request.getCategoryName())
                 .build();
-        return categoryRepository.save(category);
+        Category saved = categoryRepository.save(category);
+        facetIndex.indexCategory(saved);
+        catalogCache.invalidateCategories();
+        return saved;
     }
 
     public List<Category> getAllCategories() {
-        return categoryRepository.findAll();
-    }
-
-    // Hàm sinh ID ngẫu nhiên không trùng lặp
-    private Integer generateUniqueProductId() {
-        int randomId;
-        do {
-            randomId = new Random().nextInt(900000) + 100000;
-        } while (productRepository.existsById(randomId)); // Check xem trùng không
-
-        return randomId;
+        return catalogCache.getCategories(categoryRepository::findAll);
     }
 
     // --- PRODUCT ---
@@ -66,6 +80,17 @@ public class ProductService {
         return mapToProductResponse(product);
     }
 
+    // Lấy nhiều sản phẩm trong 1 query, id không tồn tại thì bỏ qua
+    public List<ProductResponse> getProductsByIds(List<Integer> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+        List<Integer> distinctIds = ids.stream().filter(Objects::nonNull).distinct().toList();
+        return productRepository.findAllById(distinctIds).stream()
+                .map(this::mapToProductResponse)
+                .collect(Collectors.toList());
+    }
+
     public ProductResponse createProduct(ProductRequest request) {
         // 1. Tìm danh mục trước
         Category category = categoryRepository.findById(request.getCategoryId())
@@ -73,19 +98,22 @@ public class ProductService {
 
         // 2. Tạo sản phẩm
         Product product = Product.builder()
-                .productId(generateUniqueProductId())
                 .productName(request.getProductName())
                 .price(request.getPrice())
                 .image(request.getImage())
                 .description(request.getDescription())
                 .stockQuantity(request.getStockQuantity() != null ? request.getStockQuantity() : 0)
                 .quantitySold(request.getQuantitySold() != null ? request.getQuantitySold() : 0)
+                .reservedQuantity(0)
                 .category(category)
                 .createdAt(LocalDateTime.now())
                 .isNew(true)
                 .build();
 
         productRepository.save(product);
+        searchIndex.index(product);
+        facetIndex.index(product);
+        catalogCache.invalidateFeaturedProducts();
 
         return mapToProductResponse(product);
     }
@@ -139,6 +167,10 @@ public class ProductService {
 
         // Lưu lại
         Product updatedProduct = productRepository.save(product);
+        searchIndex.index(updatedProduct);
+        facetIndex.index(updatedProduct);
+        catalogCache.invalidateFeaturedProducts();
+        eventPublisher.publishEvent(new ProductChangedEvent(List.of(productId)));
         return mapToProductResponse(updatedProduct);
     }
 
@@ -148,6 +180,10 @@ public class ProductService {
             throw new RuntimeException("Không tìm thấy sản phẩm để xóa");
         }
         productRepository.deleteById(productId);
+        searchIndex.remove(productId);
+        facetIndex.remove(productId);
+        catalogCache.invalidateFeaturedProducts();
+        eventPublisher.publishEvent(new ProductChangedEvent(List.of(productId)));
     }
 
     public Page<ProductResponse> getProductsByCategory(Integer categoryId, int page, int size) {
@@ -158,21 +194,117 @@ public class ProductService {
         return productPage.map(this::mapToProductResponse);
     }
 
-    // SEARCH
+    // SEARCH (dùng chỉ mục trong bộ nhớ, không quét bảng products)
+    // Sắp theo giá nếu người dùng chọn, còn lại xếp theo độ liên quan rồi tới ngày tạo
     public Page<ProductResponse> searchProducts(String keyword, int page, int size, String sortBy) {
-        Pageable pageable = PageRequest.of(page, size, createSort(sortBy));
-        return productRepository.findByProductNameContainingIgnoreCase(keyword, pageable)
-                .map(this::mapToProductResponse);
+        Pageable pageable = PageRequest.of(page, size);
+        List<ProductSearchIndex.SearchHit> hits = new ArrayList<>(searchIndex.search(keyword));
+
+        Comparator<ProductSearchIndex.SearchHit> byRelevance = Comparator
+                .comparingDouble(ProductSearchIndex.SearchHit::score).reversed()
+                .thenComparing(Comparator.comparingLong(ProductSearchIndex.SearchHit::createdAt).reversed());
+        if ("price_asc".equals(sortBy)) {
+            hits.sort(Comparator.comparingLong(ProductSearchIndex.SearchHit::price).thenComparing(byRelevance));
+        } else if ("price_desc".equals(sortBy)) {
+            hits.sort(Comparator.comparingLong(ProductSearchIndex.SearchHit::price).reversed().thenComparing(byRelevance));
+        } else {
+            hits.sort(byRelevance);
+        }
+
+        int from = (int) Math.min(pageable.getOffset(), hits.size());
+        int to = Math.min(from + size, hits.size());
+        List<Integer> pageIds = hits.subList(from, to).stream().map(ProductSearchIndex.SearchHit::productId).toList();
+
+        // Lấy dữ liệu đầy đủ của đúng 1 trang, giữ nguyên thứ tự xếp hạng
+        Map<Integer, Product> products = productRepository.findAllById(pageIds).stream()
+                .collect(Collectors.toMap(Product::getProductId, p -> p));
+        List<ProductResponse> content = pageIds.stream()
+                .map(products::get)
+                .filter(Objects::nonNull)
+                .map(this::mapToProductResponse)
+                .collect(Collectors.toList());
+
+        return new PageImpl<>(content, pageable, hits.size());
     }
 
     // BỘ LỌC
+    // Câu SQL chỉ chứa điều kiện của các tham số có giá trị, Postgres chọn được index phù hợp
     public Page<ProductResponse> filterProducts(Long minPrice, Long maxPrice, Integer categoryId, int page, int size, String sortBy) {
         Pageable pageable = PageRequest.of(page, size, createSort(sortBy));
 
-        return productRepository.filterProducts(minPrice, maxPrice, categoryId, pageable)
+        return productRepository.findAll(productFilter(categoryId, minPrice, maxPrice), pageable)
                 .map(this::mapToProductResponse);
     }
 
+    // LỌC + FACET: trang sản phẩm kèm số lượng theo danh mục và khoảng giá trong 1 lần gọi
+    // Số lượng facet lấy từ chỉ mục trong bộ nhớ, không GROUP BY trên bảng products
+    // (trang sản phẩm vẫn là Page của filterProducts, tổng số bản ghi vẫn do câu COUNT tính)
+    public FacetedProductResponse filterProductsWithFacets(Long minPrice, Long maxPrice, Integer categoryId,
+                                                           int page, int size, String sortBy) {
+        return FacetedProductResponse.builder()
+                .products(filterProducts(minPrice, maxPrice, categoryId, page, size, sortBy))
+                .categories(facetIndex.categoryFacets(minPrice, maxPrice))
+                .priceBuckets(facetIndex.priceBuckets(categoryId))
+                .build();
+    }
+
+    // LIỆT KÊ KIỂU CUỘN VÔ HẠN (keyset): không dùng OFFSET, không COUNT trừ khi withTotal = true
+    // Thứ tự cố định: mới nhất trước, productId làm khóa phụ để không trùng / sót khi cùng createdAt
+    public CursorPageResponse<ProductResponse> scrollProducts(String cursor, int size, Integer categoryId,
+                                                             Long minPrice, Long maxPrice, boolean withTotal) {
+        size = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        Specification<Product> filter = productFilter(categoryId, minPrice, maxPrice);
+        Specification<Product> spec = filter;
+        if (cursor != null && !cursor.isBlank()) {
+            KeysetCursor position = KeysetCursor.decode(cursor);
+            // createdAt <= cursor là điều kiện thừa về logic nhưng cho Postgres 1 khoảng để seek trên index
+            // (created_at, product_id), nhánh OR chỉ còn lọc các dòng trùng createdAt
+            spec = filter.and((root, query, cb) -> cb.and(
+                    cb.lessThanOrEqualTo(root.get("createdAt"), position.createdAt()),
+                    cb.or(
+                            cb.lessThan(root.get("createdAt"), position.createdAt()),
+                            cb.lessThan(root.get("productId"), position.productId()))));
+        }
+
+        // Lấy dư 1 bản ghi để biết còn trang sau hay không
+        List<Product> rows = productRepository.findBy(spec, q -> q
+                .sortBy(Sort.by("createdAt").descending().and(Sort.by("productId").descending()))
+                .limit(size + 1)
+                .all());
+
+        boolean hasNext = rows.size() > size;
+        List<Product> content = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasNext) {
+            Product last = content.get(content.size() - 1);
+            nextCursor = new KeysetCursor(last.getCreatedAt(), last.getProductId()).encode();
+        }
+
+        return CursorPageResponse.<ProductResponse>builder()
+                .content(content.stream().map(this::mapToProductResponse).collect(Collectors.toList()))
+                .nextCursor(nextCursor)
+                .hasNext(hasNext)
+                .totalElements(withTotal ? productRepository.count(filter) : null)
+                .build();
+    }
+
+    // Chỉ thêm điều kiện cho các tham số có giá trị
+    private Specification<Product> productFilter(Integer categoryId, Long minPrice, Long maxPrice) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (categoryId != null) {
+                predicates.add(cb.equal(root.get("category").get("categoryId"), categoryId));
+            }
+            if (minPrice != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("price"), minPrice));
+            }
+            if (maxPrice != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("price"), maxPrice));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
     private Sort createSort(String sortBy) {
         Sort sort = Sort.by("createdAt").descending(); // Mặc định
         if (sortBy != null) {
@@ -192,50 +324,43 @@ public class ProductService {
     }
 
     public List<ProductResponse> getFeaturedProducts() {
-        List<Product> products = productRepository.findOneProductPerCategory();
-        return products.stream()
+        return catalogCache.getFeaturedProducts(() -> productRepository.findOneProductPerCategory().stream()
                 .map(this::mapToProductResponse)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
     }
 
     // Xử lý kho và bán
     @Transactional
     public void reduceStock(List<ProductQuantityRequest> requests) {
-        for (ProductQuantityRequest request : requests) {
-            Product product = productRepository.findById(request.getProductId())
-                    .orElseThrow(() -> new RuntimeException("Sản phẩm không tồn tại: " + request.getProductId()));
+        Map<Integer, Integer> rowsAffected = stockEngine.decrement(requests);
 
-            if (product.getStockQuantity() < request.getQuantity()) {
+        // Dòng nào không update được -> hết hàng hoặc sản phẩm không tồn tại -> rollback cả đơn
+        for (Map.Entry<Integer, Integer> entry : rowsAffected.entrySet()) {
+            if (entry.getValue() == 0) {
+                Product product = productRepository.findById(entry.getKey())
+                        .orElseThrow(() -> new RuntimeException("Sản phẩm không tồn tại: " + entry.getKey()));
                 throw new RuntimeException("Sản phẩm " + product.getProductName() + " không đủ hàng trong kho");
             }
-
-            // Trừ tồn kho
-            product.setStockQuantity(product.getStockQuantity() - request.getQuantity());
-
-            // Tăng số lượng bán
-            int currentSold = product.getQuantitySold() == null ? 0 : product.getQuantitySold();
-            product.setQuantitySold(currentSold + request.getQuantity());
-
-            productRepository.save(product);
         }
+        publishStockChanged(requests);
     }
 
     // Kho và bán khi bị hủy đơn
     @Transactional
     public void restoreStock(List<ProductQuantityRequest> requests) {
-        for (ProductQuantityRequest request : requests) {
-            Product product = productRepository.findById(request.getProductId())
-                    .orElseThrow(() -> new RuntimeException("Sản phẩm không tồn tại: " + request.getProductId()));
-
-            // Cộng lại tồn kho
-            product.setStockQuantity(product.getStockQuantity() + request.getQuantity());
-
-            // Trừ đi số lượng đã bán
-            int currentSold = product.getQuantitySold() == null ? 0 : product.getQuantitySold();
-            product.setQuantitySold(Math.max(0, currentSold - request.getQuantity()));
+        Map<Integer, Integer> rowsAffected = stockEngine.increment(requests);
 
-            productRepository.save(product);
+        for (Map.Entry<Integer, Integer> entry : rowsAffected.entrySet()) {
+            if (entry.getValue() == 0) {
+                throw new RuntimeException("Sản phẩm không tồn tại: " + entry.getKey());
+            }
         }
+        publishStockChanged(requests);
+    }
+
+    private void publishStockChanged(List<ProductQuantityRequest> requests) {
+        List<Integer> productIds = requests.stream().map(ProductQuantityRequest::getProductId).distinct().toList();
+        eventPublisher.publishEvent(new ProductChangedEvent(productIds));
     }
 
     // Thống kê sản phẩm
@@ -253,6 +378,12 @@ public class ProductService {
         return stats;
     }
 
+    private Integer availableQuantity(Product product) {
+        int stock = product.getStockQuantity() == null ? 0 : product.getStockQuantity();
+        int reserved = product.getReservedQuantity() == null ? 0 : product.getReservedQuantity();
+        return Math.max(stock - reserved, 0);
+    }
+
     // Helper convert Entity -> DTO
     private ProductResponse mapToProductResponse(Product product) {
         return ProductResponse.builder()
@@ -262,6 +393,7 @@ public class ProductService {
                 .image(product.getImage())
                 .description(product.getDescription())
                 .stockQuantity(product.getStockQuantity())
+                .availableQuantity(availableQuantity(product))
                 .quantitySold(product.getQuantitySold())
                 .categoryName(product.getCategory().getCategoryName())
                 .categoryId(product.getCategory().getCategoryId())
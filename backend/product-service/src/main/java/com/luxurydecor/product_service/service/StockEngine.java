@@ -0,0 +1,109 @@
+package com.luxurydecor.product_service.service;
+
+import com.luxurydecor.product_service.dto.ProductQuantityRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Trừ / cộng / giữ tồn kho bằng câu UPDATE có điều kiện, không đọc entity lên Java
+// - Mỗi dòng là 1 UPDATE ... WHERE (tồn kho - đang giữ) >= :qty, DB tự đảm bảo không bán âm kho
+// - Cả request chạy trong 1 JDBC batch, sắp xếp theo productId để các giao dịch
+//   luôn khóa dòng theo cùng thứ tự -> không deadlock
+@Component
+@RequiredArgsConstructor
+public class StockEngine {
+    private static final String DECREMENT_SQL =
+            "UPDATE product_schema.products " +
+            "SET stock_quantity = stock_quantity - ?, quantity_sold = COALESCE(quantity_sold, 0) + ? " +
+            "WHERE product_id = ? AND stock_quantity - COALESCE(reserved_quantity, 0) >= ?";
+
+    private static final String INCREMENT_SQL =
+            "UPDATE product_schema.products " +
+            "SET stock_quantity = stock_quantity + ?, quantity_sold = GREATEST(COALESCE(quantity_sold, 0) - ?, 0) " +
+            "WHERE product_id = ?";
+
+    // Giữ hàng: chỉ tăng reserved_quantity nếu còn đủ hàng khả dụng (tồn kho - đang giữ)
+    private static final String RESERVE_SQL =
+            "UPDATE product_schema.products " +
+            "SET reserved_quantity = COALESCE(reserved_quantity, 0) + ? " +
+            "WHERE product_id = ? AND stock_quantity - COALESCE(reserved_quantity, 0) >= ?";
+
+    // Chốt giữ hàng: trừ kho thật và bỏ phần đang giữ
+    private static final String COMMIT_RESERVED_SQL =
+            "UPDATE product_schema.products " +
+            "SET stock_quantity = stock_quantity - ?, " +
+            "reserved_quantity = GREATEST(COALESCE(reserved_quantity, 0) - ?, 0), " +
+            "quantity_sold = COALESCE(quantity_sold, 0) + ? " +
+            "WHERE product_id = ?";
+
+    // Trả lại phần đang giữ, tồn kho không đổi
+    private static final String RELEASE_RESERVED_SQL =
+            "UPDATE product_schema.products " +
+            "SET reserved_quantity = GREATEST(COALESCE(reserved_quantity, 0) - ?, 0) " +
+            "WHERE product_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Trả về số dòng bị ảnh hưởng theo từng productId (0 = hết hàng hoặc không tồn tại)
+    public Map<Integer, Integer> decrement(List<ProductQuantityRequest> requests) {
+        TreeMap<Integer, Integer> lines = mergeLines(requests);
+        List<Object[]> args = new ArrayList<>(lines.size());
+        lines.forEach((productId, quantity) -> args.add(new Object[]{quantity, quantity, productId, quantity}));
+        return toResult(lines, jdbcTemplate.batchUpdate(DECREMENT_SQL, args));
+    }
+
+    public Map<Integer, Integer> increment(List<ProductQuantityRequest> requests) {
+        TreeMap<Integer, Integer> lines = mergeLines(requests);
+        List<Object[]> args = new ArrayList<>(lines.size());
+        lines.forEach((productId, quantity) -> args.add(new Object[]{quantity, quantity, productId}));
+        return toResult(lines, jdbcTemplate.batchUpdate(INCREMENT_SQL, args));
+    }
+
+    public Map<Integer, Integer> reserve(List<ProductQuantityRequest> requests) {
+        TreeMap<Integer, Integer> lines = mergeLines(requests);
+        List<Object[]> args = new ArrayList<>(lines.size());
+        lines.forEach((productId, quantity) -> args.add(new Object[]{quantity, productId, quantity}));
+        return toResult(lines, jdbcTemplate.batchUpdate(RESERVE_SQL, args));
+    }
+
+    public Map<Integer, Integer> commitReserved(List<ProductQuantityRequest> requests) {
+        TreeMap<Integer, Integer> lines = mergeLines(requests);
+        List<Object[]> args = new ArrayList<>(lines.size());
+        lines.forEach((productId, quantity) -> args.add(new Object[]{quantity, quantity, quantity, productId}));
+        return toResult(lines, jdbcTemplate.batchUpdate(COMMIT_RESERVED_SQL, args));
+    }
+
+    public Map<Integer, Integer> releaseReserved(List<ProductQuantityRequest> requests) {
+        TreeMap<Integer, Integer> lines = mergeLines(requests);
+        List<Object[]> args = new ArrayList<>(lines.size());
+        lines.forEach((productId, quantity) -> args.add(new Object[]{quantity, productId}));
+        return toResult(lines, jdbcTemplate.batchUpdate(RELEASE_RESERVED_SQL, args));
+    }
+
+    // Gộp các dòng trùng sản phẩm, TreeMap giữ thứ tự tăng dần theo productId
+    private TreeMap<Integer, Integer> mergeLines(List<ProductQuantityRequest> requests) {
+        TreeMap<Integer, Integer> lines = new TreeMap<>();
+        for (ProductQuantityRequest request : requests) {
+            if (request.getProductId() == null || request.getQuantity() == null || request.getQuantity() <= 0) {
+                throw new RuntimeException("Số lượng sản phẩm không hợp lệ: " + request.getProductId());
+            }
+            lines.merge(request.getProductId(), request.getQuantity(), Integer::sum);
+        }
+        return lines;
+    }
+
+    private Map<Integer, Integer> toResult(TreeMap<Integer, Integer> lines, int[] rowsAffected) {
+        Map<Integer, Integer> result = new LinkedHashMap<>();
+        int i = 0;
+        for (Integer productId : lines.keySet()) {
+            result.put(productId, rowsAffected[i++]);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,168 @@
+package com.luxurydecor.product_service.service;
+
+import com.luxurydecor.product_service.dto.ProductQuantityRequest;
+import com.luxurydecor.product_service.dto.ReserveStockRequest;
+import com.luxurydecor.product_service.entity.Product;
+import com.luxurydecor.product_service.entity.StockReservation;
+import com.luxurydecor.product_service.enums.ReservationStatus;
+import com.luxurydecor.product_service.event.ProductChangedEvent;
+import com.luxurydecor.product_service.repository.ProductRepository;
+import com.luxurydecor.product_service.repository.StockReservationRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// Giữ hàng khi đặt đơn thay vì trừ kho ngay
+// - reserve: tăng reserved_quantity, hàng khả dụng = tồn kho - đang giữ
+// - commit: thanh toán thành công / đơn được xác nhận -> trừ kho thật
+// - release: hủy đơn / thanh toán lỗi / hết hạn -> trả lại phần đang giữ
+@Service
+@RequiredArgsConstructor
+public class StockReservationService {
+    private final StockReservationRepository reservationRepository;
+    private final ProductRepository productRepository;
+    private final StockEngine stockEngine;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${stock.reservation.default-ttl-minutes:15}")
+    private int defaultTtlMinutes;
+
+    @Transactional
+    public void reserve(ReserveStockRequest request) {
+        if (request.getOrderId() == null || request.getItems() == null || request.getItems().isEmpty()) {
+            throw new RuntimeException("Yêu cầu giữ hàng không hợp lệ");
+        }
+        // Khóa theo orderId để 2 lần gọi trùng (retry) không cùng lọt qua bước kiểm tra bên dưới
+        reservationRepository.lockOrder(request.getOrderId());
+        // Gọi lại cùng orderId (retry) thì bỏ qua
+        if (reservationRepository.existsByOrderId(request.getOrderId())) {
+            return;
+        }
+
+        Map<Integer, Integer> rowsAffected = stockEngine.reserve(request.getItems());
+        for (Map.Entry<Integer, Integer> entry : rowsAffected.entrySet()) {
+            if (entry.getValue() == 0) {
+                Product product = productRepository.findById(entry.getKey())
+                        .orElseThrow(() -> new RuntimeException("Sản phẩm không tồn tại: " + entry.getKey()));
+                throw new RuntimeException("Sản phẩm " + product.getProductName() + " không đủ hàng trong kho");
+            }
+        }
+
+        int ttlMinutes = request.getTtlMinutes() != null ? request.getTtlMinutes() : defaultTtlMinutes;
+        LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(ttlMinutes);
+        List<StockReservation> reservations = rowsAffected.keySet().stream()
+                .map(productId -> StockReservation.builder()
+                        .orderId(request.getOrderId())
+                        .productId(productId)
+                        .quantity(totalQuantity(request.getItems(), productId))
+                        .status(ReservationStatus.ACTIVE)
+                        .expiresAt(expiresAt)
+                        .build())
+                .collect(Collectors.toList());
+        reservationRepository.saveAll(reservations);
+
+        publishChanged(reservations);
+    }
+
+    // Chốt giữ hàng -> trừ kho thật. Gọi nhiều lần vẫn an toàn
+    // Giữ hàng đã hết hạn / bị trả (thanh toán về muộn, admin xác nhận đơn COD quá hạn giữ)
+    // -> trừ kho có điều kiện như lúc đặt hàng, không đủ hàng thì báo lỗi thay vì bán âm kho
+    @Transactional
+    public void commit(String orderId) {
+        List<StockReservation> reservations = reservationRepository.lockByOrderId(orderId,
+                List.of(ReservationStatus.ACTIVE, ReservationStatus.COMMITTED, ReservationStatus.RELEASED));
+        if (reservations.isEmpty()
+                || reservations.stream().anyMatch(r -> r.getStatus() == ReservationStatus.COMMITTED)) {
+            // Đơn cũ (đã trừ kho lúc đặt) hoặc đã chốt rồi
+            return;
+        }
+
+        List<StockReservation> active = reservations.stream()
+                .filter(r -> r.getStatus() == ReservationStatus.ACTIVE).toList();
+        if (!active.isEmpty()) {
+            stockEngine.commitReserved(toQuantityRequests(active));
+        } else {
+            Map<Integer, Integer> rowsAffected = stockEngine.decrement(toQuantityRequests(reservations));
+            for (Map.Entry<Integer, Integer> entry : rowsAffected.entrySet()) {
+                if (entry.getValue() == 0) {
+                    // Exception -> rollback cả các dòng đã trừ trong cùng batch
+                    throw new RuntimeException("Giữ hàng của đơn " + orderId + " đã hết hạn và sản phẩm "
+                            + entry.getKey() + " không còn đủ hàng trong kho");
+                }
+            }
+        }
+        reservations.forEach(r -> r.setStatus(ReservationStatus.COMMITTED));
+        publishChanged(reservations);
+    }
+
+    // Trả hàng của đơn: đang giữ -> bỏ giữ, đã chốt -> cộng lại kho
+    // Trả về false nếu đơn không có bản ghi giữ hàng nào (đơn cũ trước khi có cơ chế giữ hàng)
+    @Transactional
+    public boolean release(String orderId) {
+        List<StockReservation> reservations = reservationRepository.lockByOrderId(orderId,
+                List.of(ReservationStatus.ACTIVE, ReservationStatus.COMMITTED));
+        if (reservations.isEmpty()) {
+            return reservationRepository.existsByOrderId(orderId);
+        }
+
+        List<StockReservation> active = reservations.stream()
+                .filter(r -> r.getStatus() == ReservationStatus.ACTIVE).toList();
+        List<StockReservation> committed = reservations.stream()
+                .filter(r -> r.getStatus() == ReservationStatus.COMMITTED).toList();
+        if (!active.isEmpty()) {
+            stockEngine.releaseReserved(toQuantityRequests(active));
+        }
+        if (!committed.isEmpty()) {
+            stockEngine.increment(toQuantityRequests(committed));
+        }
+
+        reservations.forEach(r -> r.setStatus(ReservationStatus.RELEASED));
+        publishChanged(reservations);
+        return true;
+    }
+
+    // Trả lại 1 lô giữ hàng đã hết hạn, trả về số dòng đã xử lý
+    @Transactional
+    public int releaseExpired(int batchSize) {
+        List<StockReservation> expired = reservationRepository.lockExpired(
+                ReservationStatus.ACTIVE, LocalDateTime.now(), PageRequest.of(0, batchSize));
+        if (expired.isEmpty()) {
+            return 0;
+        }
+        stockEngine.releaseReserved(toQuantityRequests(expired));
+        expired.forEach(r -> r.setStatus(ReservationStatus.RELEASED));
+        publishChanged(expired);
+        return expired.size();
+    }
+
+    private int totalQuantity(List<ProductQuantityRequest> items, Integer productId) {
+        return items.stream()
+                .filter(item -> productId.equals(item.getProductId()))
+                .mapToInt(ProductQuantityRequest::getQuantity)
+                .sum();
+    }
+
+    private List<ProductQuantityRequest> toQuantityRequests(List<StockReservation> reservations) {
+        return reservations.stream()
+                .map(r -> {
+                    ProductQuantityRequest request = new ProductQuantityRequest();
+                    request.setProductId(r.getProductId());
+                    request.setQuantity(r.getQuantity());
+                    return request;
+                })
+                .collect(Collectors.toList());
+    }
+
+    private void publishChanged(List<StockReservation> reservations) {
+        List<Integer> productIds = reservations.stream().map(StockReservation::getProductId).distinct().toList();
+        eventPublisher.publishEvent(new ProductChangedEvent(productIds));
+    }
+}
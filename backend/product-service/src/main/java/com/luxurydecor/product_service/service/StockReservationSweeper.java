@@ -0,0 +1,25 @@
+package com.luxurydecor.product_service.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+// Định kỳ trả lại kho cho các đơn giữ hàng quá hạn (bỏ thanh toán, đóng tab...)
+@Component
+@RequiredArgsConstructor
+public class StockReservationSweeper {
+    private final StockReservationService reservationService;
+
+    @Value("${stock.reservation.sweep-batch-size:500}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${stock.reservation.sweep-interval-ms:60000}")
+    public void releaseExpiredReservations() {
+        // Mỗi lô chạy trong 1 transaction riêng để không khóa quá nhiều dòng
+        int released;
+        do {
+            released = reservationService.releaseExpired(batchSize);
+        } while (released == batchSize);
+    }
+}
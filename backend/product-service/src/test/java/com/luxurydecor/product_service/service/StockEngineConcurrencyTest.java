@@ -0,0 +1,99 @@
+package com.luxurydecor.product_service.service;
+
+import com.luxurydecor.product_service.dto.CategoryRequest;
+import com.luxurydecor.product_service.dto.ProductQuantityRequest;
+import com.luxurydecor.product_service.dto.ProductRequest;
+import com.luxurydecor.product_service.entity.Category;
+import com.luxurydecor.product_service.entity.Product;
+import com.luxurydecor.product_service.repository.CategoryRepository;
+import com.luxurydecor.product_service.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class StockEngineConcurrencyTest {
+    private static final int INITIAL_STOCK = 500;
+    private static final int ATTEMPTS = 3000;
+
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    private Integer categoryId;
+    private Integer productId;
+
+    @BeforeEach
+    void setUp() {
+        CategoryRequest categoryRequest = new CategoryRequest();
+        categoryRequest.setCategoryName("stock-test-" + UUID.randomUUID());
+        Category category = productService.createCategory(categoryRequest);
+        categoryId = category.getCategoryId();
+
+        ProductRequest productRequest = new ProductRequest();
+        productRequest.setProductName("Hot SKU");
+        productRequest.setPrice(100_000L);
+        productRequest.setStockQuantity(INITIAL_STOCK);
+        productRequest.setQuantitySold(0);
+        productRequest.setCategoryId(categoryId);
+        productId = productService.createProduct(productRequest).getProductId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteById(productId);
+        categoryRepository.deleteById(categoryId);
+    }
+
+    @Test
+    void parallelReductionsNeverOversell() throws Exception {
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(32)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < ATTEMPTS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    ProductQuantityRequest request = new ProductQuantityRequest();
+                    request.setProductId(productId);
+                    request.setQuantity(1);
+                    try {
+                        productService.reduceStock(List.of(request));
+                        succeeded.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        Product product = productRepository.findById(productId).orElseThrow();
+        assertThat(succeeded.get()).isEqualTo(INITIAL_STOCK);
+        assertThat(rejected.get()).isEqualTo(ATTEMPTS - INITIAL_STOCK);
+        assertThat(product.getStockQuantity()).isZero();
+        assertThat(product.getQuantitySold()).isEqualTo(INITIAL_STOCK);
+    }
+}